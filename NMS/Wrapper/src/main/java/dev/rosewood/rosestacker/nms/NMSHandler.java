@@ -90,6 +90,22 @@ public interface NMSHandler {
      */
     void updateEntityNameTagVisibilityForPlayer(Player player, Entity entity, boolean customNameVisible);
 
+    /**
+     * Starts collecting the nametag and hologram packets sent on the current thread so each player receives them
+     * together as a single bundle when {@link #flushPacketBatch()} is called.
+     * Packets are sent individually on versions without bundle packets.
+     */
+    default void beginPacketBatch() {
+
+    }
+
+    /**
+     * Sends the packets collected since the matching call to {@link #beginPacketBatch()}
+     */
+    default void flushPacketBatch() {
+
+    }
+
     /**
      * Unignites a creeper
      *
@@ -17,6 +17,7 @@ import dev.rosewood.rosestacker.nms.v1_19_R3.spawner.StackedSpawnerTileImpl;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.NBTEntityDataEntry;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.NBTStackedEntityDataStorage;
 import dev.rosewood.rosestacker.nms.v1_19_R3.storage.SimpleStackedEntityDataStorage;
+import dev.rosewood.rosestacker.nms.v1_19_R3.util.PacketBatcher;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -253,7 +254,7 @@ public class NMSHandlerImpl implements NMSHandler {
             dataValues.add(SynchedEntityData.DataValue.create(EntityDataSerializers.BOOLEAN.createAccessor(3), customNameVisible));
 
             ClientboundSetEntityDataPacket entityDataPacket = new ClientboundSetEntityDataPacket(entity.getEntityId(), dataValues);
-            ((CraftPlayer) player).getHandle().connection.send(entityDataPacket);
+            PacketBatcher.send(player, entityDataPacket);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -264,12 +265,22 @@ public class NMSHandlerImpl implements NMSHandler {
         try {
             List<SynchedEntityData.DataValue<?>> dataValues = Lists.newArrayList(SynchedEntityData.DataValue.create(EntityDataSerializers.BOOLEAN.createAccessor(3), customNameVisible));
             ClientboundSetEntityDataPacket entityDataPacket = new ClientboundSetEntityDataPacket(entity.getEntityId(), dataValues);
-            ((CraftPlayer) player).getHandle().connection.send(entityDataPacket);
+            PacketBatcher.send(player, entityDataPacket);
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    @Override
+    public void beginPacketBatch() {
+        PacketBatcher.begin();
+    }
+
+    @Override
+    public void flushPacketBatch() {
+        PacketBatcher.flush();
+    }
+
     @Override
     public void unigniteCreeper(Creeper creeper) {
         net.minecraft.world.entity.monster.Creeper nmsCreeper = ((CraftCreeper) creeper).getHandle();
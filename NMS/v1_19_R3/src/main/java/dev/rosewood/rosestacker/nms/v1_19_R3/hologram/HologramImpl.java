@@ -2,6 +2,7 @@ package dev.rosewood.rosestacker.nms.v1_19_R3.hologram;
 
 import dev.rosewood.rosestacker.nms.hologram.Hologram;
 import dev.rosewood.rosestacker.nms.hologram.HologramLine;
+import dev.rosewood.rosestacker.nms.v1_19_R3.util.PacketBatcher;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -16,7 +17,6 @@ import net.minecraft.network.syncher.SynchedEntityData;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.phys.Vec3;
 import org.bukkit.Location;
-import org.bukkit.craftbukkit.v1_19_R3.entity.CraftPlayer;
 import org.bukkit.craftbukkit.v1_19_R3.util.CraftChatMessage;
 import org.bukkit.entity.Player;
 
@@ -48,7 +48,7 @@ public class HologramImpl extends Hologram {
                     0
             );
 
-            ((CraftPlayer) player).getHandle().connection.send(packet);
+            PacketBatcher.send(player, packet);
         }
     }
 
@@ -67,7 +67,7 @@ public class HologramImpl extends Hologram {
                 if (visible == null)
                     return;
 
-                ((CraftPlayer) player).getHandle().connection.send(new ClientboundSetEntityDataPacket(line.getEntityId(), dataValues));
+                PacketBatcher.send(player, new ClientboundSetEntityDataPacket(line.getEntityId(), dataValues));
             }
         }
     }
@@ -76,7 +76,7 @@ public class HologramImpl extends Hologram {
     protected void delete(Player player) {
         ClientboundRemoveEntitiesPacket packet = new ClientboundRemoveEntitiesPacket(this.hologramLines.stream().mapToInt(HologramLine::getEntityId).toArray());
 
-        ((CraftPlayer) player).getHandle().connection.send(packet);
+        PacketBatcher.send(player, packet);
     }
 
 }
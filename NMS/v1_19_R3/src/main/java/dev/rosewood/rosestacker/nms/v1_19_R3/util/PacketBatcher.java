@@ -0,0 +1,87 @@
+package dev.rosewood.rosestacker.nms.v1_19_R3.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import org.bukkit.craftbukkit.v1_19_R3.entity.CraftPlayer;
+import org.bukkit.entity.Player;
+
+/**
+ * Collects the packets sent to each player on the current thread while a batch is open and sends them as a single
+ * bundle per player when the batch is flushed. Packets are sent right away when no batch is open.
+ */
+public final class PacketBatcher {
+
+    private static final int MAX_BUNDLE_SIZE = 4096;
+    private static final ThreadLocal<Batch> BATCH = new ThreadLocal<>();
+
+    private PacketBatcher() {
+
+    }
+
+    /**
+     * Opens a batch on the current thread, batches can be nested and are only sent when the outermost one is flushed
+     */
+    public static void begin() {
+        Batch batch = BATCH.get();
+        if (batch == null) {
+            batch = new Batch();
+            BATCH.set(batch);
+        }
+        batch.depth++;
+    }
+
+    /**
+     * Closes the batch opened with {@link #begin()} and sends the collected packets if it was the outermost one
+     */
+    public static void flush() {
+        Batch batch = BATCH.get();
+        if (batch == null || --batch.depth > 0)
+            return;
+
+        BATCH.remove();
+        batch.packets.forEach((player, packets) -> {
+            if (!player.isOnline())
+                return;
+
+            if (packets.size() == 1) {
+                sendNow(player, packets.get(0));
+                return;
+            }
+
+            for (int i = 0; i < packets.size(); i += MAX_BUNDLE_SIZE)
+                sendNow(player, new ClientboundBundlePacket(packets.subList(i, Math.min(i + MAX_BUNDLE_SIZE, packets.size()))));
+        });
+    }
+
+    /**
+     * Sends a packet to a player, or adds it to the player's bundle if a batch is open on the current thread
+     *
+     * @param player The player to send the packet to
+     * @param packet The packet to send
+     */
+    public static void send(Player player, Packet<ClientGamePacketListener> packet) {
+        Batch batch = BATCH.get();
+        if (batch == null) {
+            sendNow(player, packet);
+        } else {
+            batch.packets.computeIfAbsent(player, x -> new ArrayList<>()).add(packet);
+        }
+    }
+
+    private static void sendNow(Player player, Packet<?> packet) {
+        ((CraftPlayer) player).getHandle().connection.send(packet);
+    }
+
+    private static class Batch {
+
+        private final Map<Player, List<Packet<ClientGamePacketListener>>> packets = new LinkedHashMap<>();
+        private int depth;
+
+    }
+
+}
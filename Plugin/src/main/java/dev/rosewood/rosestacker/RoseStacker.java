@@ -15,14 +15,20 @@ import dev.rosewood.rosestacker.listener.EntitiesLoadListener;
 import dev.rosewood.rosestacker.listener.EntityListener;
 import dev.rosewood.rosestacker.listener.InteractListener;
 import dev.rosewood.rosestacker.listener.ItemListener;
+import dev.rosewood.rosestacker.listener.StackRegistrationListener;
+import dev.rosewood.rosestacker.listener.StackStateListener;
 import dev.rosewood.rosestacker.listener.StackToolListener;
 import dev.rosewood.rosestacker.listener.WorldListener;
+import dev.rosewood.rosestacker.listener.paper.PaperEntityTrackListener;
+import dev.rosewood.rosestacker.listener.paper.PaperEntityWorldListener;
 import dev.rosewood.rosestacker.listener.paper.PaperPreCreatureSpawnListener;
 import dev.rosewood.rosestacker.manager.CommandManager;
 import dev.rosewood.rosestacker.manager.ConfigurationManager;
 import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.HologramManager;
+import dev.rosewood.rosestacker.manager.LineOfSightManager;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.manager.NametagManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
@@ -75,6 +81,8 @@ public class RoseStacker extends RosePlugin {
         pluginManager.registerEvents(new StackToolListener(this), this);
         pluginManager.registerEvents(new BreedingListener(this), this);
         pluginManager.registerEvents(new BeeListener(this), this);
+        pluginManager.registerEvents(new StackStateListener(this), this);
+        pluginManager.registerEvents(new StackRegistrationListener(this), this);
 
         if (NMSUtil.getVersionNumber() >= 17) {
             try {
@@ -86,8 +94,16 @@ public class RoseStacker extends RosePlugin {
         }
 
         // Try to hook with Paper
-        if (NMSUtil.isPaper() && NMSUtil.getVersionNumber() >= 18)
-            pluginManager.registerEvents(new PaperPreCreatureSpawnListener(this), this);
+        if (NMSUtil.isPaper()) {
+            pluginManager.registerEvents(new PaperEntityWorldListener(this), this);
+            if (NMSUtil.getVersionNumber() >= 18)
+                pluginManager.registerEvents(new PaperPreCreatureSpawnListener(this), this);
+
+            try {
+                Class.forName("io.papermc.paper.event.player.PlayerUntrackEntityEvent");
+                pluginManager.registerEvents(new PaperEntityTrackListener(this), this);
+            } catch (ClassNotFoundException ignored) { }
+        }
 
         // Try to hook with PlaceholderAPI
         if (Bukkit.getPluginManager().isPluginEnabled("PlaceholderAPI"))
@@ -122,10 +138,12 @@ public class RoseStacker extends RosePlugin {
     @Override
     protected List<Class<? extends Manager>> getManagerLoadPriority() {
         return List.of(
+                LineOfSightManager.class,
                 HologramManager.class,
                 StackSettingManager.class,
                 CommandManager.class,
                 EntityCacheManager.class,
+                NametagManager.class,
                 StackManager.class
         );
     }
@@ -5,6 +5,7 @@ import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
+import dev.rosewood.rosestacker.stack.StackCounters;
 import dev.rosewood.rosestacker.stack.StackedBlock;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedItem;
@@ -102,6 +103,29 @@ public final class RoseStackerAPI {
         return Collections.unmodifiableMap(this.stackManager.getStackingThreads());
     }
 
+    /**
+     * Gets the live stack counts for all loaded worlds, reading them doesn't need to look at any stacks
+     *
+     * @return the stack counts for all loaded worlds
+     */
+    @NotNull
+    public StackCounters getStackCounters() {
+        return this.stackManager.getStackCounters();
+    }
+
+    /**
+     * Gets the live stack counts for a World
+     *
+     * @param world the World
+     * @return the stack counts for the World, otherwise null if it doesn't have a StackingThread
+     */
+    @Nullable
+    public StackCounters getStackCounters(@NotNull World world) {
+        Objects.requireNonNull(world);
+
+        return this.stackManager.getStackCounters(world);
+    }
+
     /**
      * @return an unmodifiable map of all loaded stacked entities
      */
@@ -619,9 +643,7 @@ public final class RoseStackerAPI {
     public List<StackedEntity> getStackedEntities(@NotNull Collection<Chunk> chunks) {
         Objects.requireNonNull(chunks);
 
-        return this.stackManager.getStackedEntities().values().stream()
-                .filter(x -> chunks.contains(x.getLocation().getChunk()))
-                .toList();
+        return Collections.unmodifiableList(this.stackManager.getStackedEntities(chunks));
     }
 
     /**
@@ -634,9 +656,7 @@ public final class RoseStackerAPI {
     public List<StackedItem> getStackedItems(@NotNull Collection<Chunk> chunks) {
         Objects.requireNonNull(chunks);
 
-        return this.stackManager.getStackedItems().values().stream()
-                .filter(x -> chunks.contains(x.getLocation().getChunk()))
-                .toList();
+        return Collections.unmodifiableList(this.stackManager.getStackedItems(chunks));
     }
 
     /**
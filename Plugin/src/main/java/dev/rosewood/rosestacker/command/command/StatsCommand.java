@@ -6,9 +6,13 @@ import dev.rosewood.rosegarden.command.framework.RoseCommand;
 import dev.rosewood.rosegarden.command.framework.RoseCommandWrapper;
 import dev.rosewood.rosegarden.command.framework.annotation.RoseExecutable;
 import dev.rosewood.rosegarden.utils.StringPlaceholders;
+import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.LocaleManager;
 import dev.rosewood.rosestacker.manager.StackManager;
-import dev.rosewood.rosestacker.stack.Stack;
+import dev.rosewood.rosestacker.stack.CommitQueue;
+import dev.rosewood.rosestacker.stack.StackCounters;
+import dev.rosewood.rosestacker.stack.StackingCursor;
+import dev.rosewood.rosestacker.stack.StackingThread;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 
@@ -25,15 +29,16 @@ public class StatsCommand extends RoseCommand {
 
         int threadAmount = stackManager.getStackingThreads().size();
 
-        int entityStackAmount = stackManager.getStackedEntities().size();
-        int itemStackAmount = stackManager.getStackedItems().size();
-        int blockStackAmount = stackManager.getStackedBlocks().size();
-        int spawnerStackAmount = stackManager.getStackedSpawners().size();
+        StackCounters counters = stackManager.getStackCounters();
+        long entityStackAmount = counters.getStackCount(StackCounters.Type.ENTITY);
+        long itemStackAmount = counters.getStackCount(StackCounters.Type.ITEM);
+        long blockStackAmount = counters.getStackCount(StackCounters.Type.BLOCK);
+        long spawnerStackAmount = counters.getStackCount(StackCounters.Type.SPAWNER);
 
-        int entityAmount = stackManager.getStackedEntities().values().stream().mapToInt(Stack::getStackSize).sum();
-        int itemAmount = stackManager.getStackedItems().values().stream().mapToInt(Stack::getStackSize).sum();
-        int blockAmount = stackManager.getStackedBlocks().values().stream().mapToInt(Stack::getStackSize).sum();
-        int spawnerAmount = stackManager.getStackedSpawners().values().stream().mapToInt(Stack::getStackSize).sum();
+        long entityAmount = counters.getStackedAmount(StackCounters.Type.ENTITY);
+        long itemAmount = counters.getStackedAmount(StackCounters.Type.ITEM);
+        long blockAmount = counters.getStackedAmount(StackCounters.Type.BLOCK);
+        long spawnerAmount = counters.getStackedAmount(StackCounters.Type.SPAWNER);
 
         localeManager.sendMessage(context.getSender(), "command-stats-header");
         localeManager.sendSimpleMessage(context.getSender(), "command-stats-threads", StringPlaceholders.of("amount", StackerUtils.formatNumber(threadAmount)));
@@ -42,6 +47,42 @@ public class StatsCommand extends RoseCommand {
         localeManager.sendSimpleMessage(context.getSender(), "command-stats-stacked-blocks", StringPlaceholders.builder("stackAmount", blockStackAmount).add("total", StackerUtils.formatNumber(blockAmount)).build());
         localeManager.sendSimpleMessage(context.getSender(), "command-stats-stacked-spawners", StringPlaceholders.builder("stackAmount", spawnerStackAmount).add("total", StackerUtils.formatNumber(spawnerAmount)).build());
         localeManager.sendSimpleMessage(context.getSender(), "command-stats-active-tasks", StringPlaceholders.of("amount", StackerUtils.formatNumber(ThreadUtils.getActiveThreads())));
+
+        int queuedChanges = stackManager.getStackingThreads().values().stream().map(StackingThread::getCommitQueue).mapToInt(CommitQueue::getDepth).sum();
+        int peakQueuedChanges = stackManager.getStackingThreads().values().stream().map(StackingThread::getCommitQueue).mapToInt(CommitQueue::getPeakDepth).max().orElse(0);
+        localeManager.sendSimpleMessage(context.getSender(), "command-stats-queued-changes", StringPlaceholders.builder("amount", StackerUtils.formatNumber(queuedChanges)).add("peak", StackerUtils.formatNumber(peakQueuedChanges)).build());
+
+        if (Setting.PERFORMANCE_STACKING_PASS_TIME_BUDGET.getLong() > 0) {
+            for (StackingThread stackingThread : stackManager.getStackingThreads().values()) {
+                StackingCursor entityCursor = stackingThread.getEntityStackCursor();
+                StackingCursor itemCursor = stackingThread.getItemStackCursor();
+                localeManager.sendSimpleMessage(context.getSender(), "command-stats-stacking-coverage", StringPlaceholders.builder("world", stackingThread.getTargetWorld().getName())
+                        .add("entityRuns", entityCursor.getRunsLastSweep())
+                        .add("entityProgress", Math.round(entityCursor.getSweepProgress() * 100))
+                        .add("itemRuns", itemCursor.getRunsLastSweep())
+                        .add("itemProgress", Math.round(itemCursor.getSweepProgress() * 100))
+                        .build());
+            }
+        }
+
+        if (Setting.PERFORMANCE_UNSTACKED_AUDIT_INTERVAL.getInt() > 0) {
+            for (StackingThread stackingThread : stackManager.getStackingThreads().values()) {
+                localeManager.sendSimpleMessage(context.getSender(), "command-stats-unstacked-audit", StringPlaceholders.builder("world", stackingThread.getTargetWorld().getName())
+                        .add("pending", StackerUtils.formatNumber(stackingThread.getPendingRegistrations()))
+                        .add("last", StackerUtils.formatNumber(stackingThread.getLastAuditFound()))
+                        .add("total", StackerUtils.formatNumber(stackingThread.getTotalAuditFound()))
+                        .build());
+            }
+        }
+
+        if (Setting.SPAWNER_DISPLAY_TAGS.getBoolean()) {
+            for (StackingThread stackingThread : stackManager.getStackingThreads().values()) {
+                localeManager.sendSimpleMessage(context.getSender(), "command-stats-skipped-hologram-refreshes", StringPlaceholders.builder("world", stackingThread.getTargetWorld().getName())
+                        .add("last", StackerUtils.formatNumber(stackingThread.getLastSkippedHologramRefreshes()))
+                        .add("total", StackerUtils.formatNumber(stackingThread.getTotalSkippedHologramRefreshes()))
+                        .build());
+            }
+        }
     }
 
     @Override
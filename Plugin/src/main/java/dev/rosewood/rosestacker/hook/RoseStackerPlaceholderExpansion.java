@@ -3,6 +3,8 @@ package dev.rosewood.rosestacker.hook;
 import dev.rosewood.rosegarden.RosePlugin;
 import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.manager.StackManager;
+import dev.rosewood.rosestacker.stack.StackCounters;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.entity.Player;
@@ -17,6 +19,18 @@ public class RoseStackerPlaceholderExpansion extends PlaceholderExpansion {
 
     @Override
     public String onPlaceholderRequest(Player player, String placeholder) {
+        // Stack counts, %rosestacker_<type>_<stacks|total>% for all worlds or %rosestacker_world_<type>_<stacks|total>% for the player's world
+        StackManager stackManager = this.plugin.getManager(StackManager.class);
+        if (placeholder.startsWith("world_")) {
+            if (player == null)
+                return null;
+            return this.getCounterValue(stackManager.getStackCounters(player.getWorld()), placeholder.substring("world_".length()));
+        }
+
+        String counterValue = this.getCounterValue(stackManager.getStackCounters(), placeholder);
+        if (counterValue != null)
+            return counterValue;
+
         if (player == null)
             return null;
 
@@ -29,6 +43,32 @@ public class RoseStackerPlaceholderExpansion extends PlaceholderExpansion {
         };
     }
 
+    private String getCounterValue(StackCounters counters, String placeholder) {
+        if (counters == null)
+            return null;
+
+        int separator = placeholder.lastIndexOf('_');
+        if (separator == -1)
+            return null;
+
+        StackCounters.Type type = switch (placeholder.substring(0, separator)) {
+            case "entity" -> StackCounters.Type.ENTITY;
+            case "item" -> StackCounters.Type.ITEM;
+            case "block" -> StackCounters.Type.BLOCK;
+            case "spawner" -> StackCounters.Type.SPAWNER;
+            default -> null;
+        };
+
+        if (type == null)
+            return null;
+
+        return switch (placeholder.substring(separator + 1)) {
+            case "stacks" -> String.valueOf(counters.getStackCount(type));
+            case "total" -> String.valueOf(counters.getStackedAmount(type));
+            default -> null;
+        };
+    }
+
     @Override
     public boolean persist() {
         return true;
@@ -587,8 +587,8 @@ public class BlockListener implements Listener {
                     }
                 }
             } else {
-                int blockChunkX = block.getLocation().getBlockX() >> 4;
-                int blockChunkZ = block.getLocation().getBlockZ() >> 4;
+                int blockChunkX = block.getX() >> 4;
+                int blockChunkZ = block.getZ() >> 4;
                 for (StackedSpawner spawner : spawners) {
                     Block spawnerBlock = spawner.getBlock();
                     if (spawnerBlock.getX() >> 4 == blockChunkX && spawnerBlock.getZ() >> 4 == blockChunkZ) {
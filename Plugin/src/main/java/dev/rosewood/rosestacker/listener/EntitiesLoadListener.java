@@ -1,6 +1,7 @@
 package dev.rosewood.rosestacker.listener;
 
 import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import org.bukkit.entity.Entity;
@@ -13,9 +14,11 @@ import org.bukkit.event.world.EntitiesUnloadEvent;
 public class EntitiesLoadListener implements Listener {
 
     private final StackManager stackManager;
+    private final EntityCacheManager entityCacheManager;
 
     public EntitiesLoadListener(RosePlugin rosePlugin) {
         this.stackManager = rosePlugin.getManager(StackManager.class);
+        this.entityCacheManager = rosePlugin.getManager(EntityCacheManager.class);
     }
 
     @EventHandler
@@ -24,12 +27,14 @@ public class EntitiesLoadListener implements Listener {
             if (entity instanceof LivingEntity)
                 PersistentDataUtils.applyDisabledAi((LivingEntity) entity);
 
+        this.entityCacheManager.cacheChunkEntities(event.getEntities());
         this.stackManager.loadChunkEntities(event.getChunk(), event.getEntities());
     }
 
     @EventHandler
     public void onEntitiesUnload(EntitiesUnloadEvent event) {
         this.stackManager.saveChunkEntities(event.getChunk(), event.getEntities(), true);
+        this.entityCacheManager.uncacheChunkEntities(event.getEntities());
     }
 
 }
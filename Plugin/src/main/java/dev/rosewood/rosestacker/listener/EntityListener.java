@@ -507,6 +507,7 @@ public class EntityListener implements Listener {
 
         if (!stackedEntity.getStackSettings().getSettingValue(EntityStackSettings.SHEEP_SHEAR_ALL_SHEEP_IN_STACK).getBoolean()) {
             ThreadUtils.runSync(() -> {
+                stackedEntity.incrementVersion();
                 if (!stackedEntity.shouldStayStacked() && stackedEntity.getStackSize() > 1)
                     stackManager.splitEntityStack(stackedEntity);
             });
@@ -526,6 +527,7 @@ public class EntityListener implements Listener {
                     }
                     return false;
                 });
+                stackedEntity.incrementVersion();
 
                 Location location = sheepEntity.getLocation();
                 location.add(0, sheepEntity.getEyeHeight(), 0);
@@ -568,14 +570,17 @@ public class EntityListener implements Listener {
             return;
 
         AtomicInteger regrowRemaining = new AtomicInteger(regrowAmount);
-        ThreadUtils.runAsync(() -> stackedEntity.getDataStorage().forEachTransforming(internal -> {
-            Sheep sheep = (Sheep) internal;
-            if (sheep.isSheared() && regrowRemaining.getAndDecrement() > 0) {
-                sheep.setSheared(false);
-                return true;
-            }
-            return false;
-        }));
+        ThreadUtils.runAsync(() -> {
+            stackedEntity.getDataStorage().forEachTransforming(internal -> {
+                Sheep sheep = (Sheep) internal;
+                if (sheep.isSheared() && regrowRemaining.getAndDecrement() > 0) {
+                    sheep.setSheared(false);
+                    return true;
+                }
+                return false;
+            });
+            stackedEntity.incrementVersion();
+        });
     }
 
 }
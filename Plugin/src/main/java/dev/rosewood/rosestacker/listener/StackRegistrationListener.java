@@ -0,0 +1,77 @@
+package dev.rosewood.rosestacker.listener;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.StackManager;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+import org.bukkit.event.entity.CreatureSpawnEvent.SpawnReason;
+import org.bukkit.event.entity.EntityPortalEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.entity.EntityTeleportEvent;
+import org.bukkit.event.entity.EntityTransformEvent;
+
+/**
+ * Queues entities and items that enter a world without getting stacked, such as ones spawned while stacking is
+ * temporarily disabled or moved from another world, so they get stacked on the next stacking pass.
+ * Entities loaded with their chunks are already stacked when they load.
+ */
+public class StackRegistrationListener implements Listener {
+
+    private final StackManager stackManager;
+
+    public StackRegistrationListener(RosePlugin rosePlugin) {
+        this.stackManager = rosePlugin.getManager(StackManager.class);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        // Spawn eggs are stacked a tick later by the EntityListener
+        if (event instanceof CreatureSpawnEvent creatureSpawnEvent && creatureSpawnEvent.getSpawnReason() == SpawnReason.SPAWNER_EGG)
+            return;
+
+        this.queue(event.getEntity(), event.getLocation().getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityTeleport(EntityTeleportEvent event) {
+        this.queueIfChangingWorld(event.getEntity(), event.getFrom(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPortal(EntityPortalEvent event) {
+        this.queueIfChangingWorld(event.getEntity(), event.getFrom(), event.getTo());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityTransform(EntityTransformEvent event) {
+        for (Entity entity : event.getTransformedEntities())
+            this.queue(entity, event.getEntity().getWorld());
+    }
+
+    private void queueIfChangingWorld(Entity entity, Location from, Location to) {
+        if (to == null || from.getWorld() == to.getWorld())
+            return;
+
+        this.queue(entity, to.getWorld());
+    }
+
+    private void queue(Entity entity, World world) {
+        if (entity instanceof LivingEntity livingEntity) {
+            if (entity.getType() == EntityType.PLAYER || entity.getType() == EntityType.ARMOR_STAND || this.stackManager.isEntityStacked(livingEntity))
+                return;
+        } else if (!(entity instanceof Item item) || this.stackManager.isItemStacked(item)) {
+            return;
+        }
+
+        this.stackManager.queueRegistration(entity.getUniqueId(), world);
+    }
+
+}
@@ -0,0 +1,87 @@
+package dev.rosewood.rosestacker.listener;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.StackManager;
+import dev.rosewood.rosestacker.stack.StackedEntity;
+import dev.rosewood.rosestacker.utils.ThreadUtils;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockShearEntityEvent;
+import org.bukkit.event.entity.EntityBreedEvent;
+import org.bukkit.event.entity.EntityTameEvent;
+import org.bukkit.event.entity.SheepDyeWoolEvent;
+import org.bukkit.event.entity.SheepRegrowWoolEvent;
+import org.bukkit.event.entity.VillagerCareerChangeEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerShearEntityEvent;
+
+/**
+ * Marks entity stacks as changed when something happens to their main entity that could affect whether it can stay
+ * stacked, so cached stack checks are evaluated again
+ */
+public class StackStateListener implements Listener {
+
+    private final RosePlugin rosePlugin;
+
+    public StackStateListener(RosePlugin rosePlugin) {
+        this.rosePlugin = rosePlugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInteractEntity(PlayerInteractEntityEvent event) {
+        this.markChanged(event.getRightClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityTame(EntityTameEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityBreed(EntityBreedEvent event) {
+        this.markChanged(event.getMother());
+        this.markChanged(event.getFather());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSheepDyeWool(SheepDyeWoolEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSheepRegrowWool(SheepRegrowWoolEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onVillagerCareerChange(VillagerCareerChangeEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerShearEntity(PlayerShearEntityEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockShearEntity(BlockShearEntityEvent event) {
+        this.markChanged(event.getEntity());
+    }
+
+    private void markChanged(Entity entity) {
+        if (!(entity instanceof LivingEntity livingEntity))
+            return;
+
+        StackedEntity stackedEntity = this.rosePlugin.getManager(StackManager.class).getStackedEntity(livingEntity);
+        if (stackedEntity == null)
+            return;
+
+        // Most of these changes are only applied to the entity after the event finishes, mark it again once they have been
+        stackedEntity.incrementVersion();
+        ThreadUtils.runSync(stackedEntity::incrementVersion);
+    }
+
+}
@@ -2,6 +2,7 @@ package dev.rosewood.rosestacker.listener;
 
 import dev.rosewood.rosegarden.RosePlugin;
 import dev.rosewood.rosegarden.utils.NMSUtil;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
@@ -23,10 +24,12 @@ public class WorldListener implements Listener {
 
     private final RosePlugin rosePlugin;
     private final StackManager stackManager;
+    private final EntityCacheManager entityCacheManager;
 
     public WorldListener(RosePlugin rosePlugin) {
         this.rosePlugin = rosePlugin;
         this.stackManager = rosePlugin.getManager(StackManager.class);
+        this.entityCacheManager = rosePlugin.getManager(EntityCacheManager.class);
     }
 
     /**
@@ -60,7 +63,9 @@ public class WorldListener implements Listener {
                     if (entity instanceof LivingEntity)
                         PersistentDataUtils.applyDisabledAi((LivingEntity) entity);
 
-                this.stackManager.loadChunkEntities(chunk, List.of(entities));
+                List<Entity> entityList = List.of(entities);
+                this.entityCacheManager.cacheChunkEntities(entityList);
+                this.stackManager.loadChunkEntities(chunk, entityList);
             }
 
             this.stackManager.loadChunkBlocks(chunk);
@@ -71,8 +76,11 @@ public class WorldListener implements Listener {
     public void onChunkUnload(ChunkUnloadEvent event) {
         this.stackManager.saveChunkBlocks(event.getChunk(), true);
 
-        if (NMSUtil.getVersionNumber() < 17)
-            this.stackManager.saveChunkEntities(event.getChunk(), List.of(event.getChunk().getEntities()), true);
+        if (NMSUtil.getVersionNumber() < 17) {
+            List<Entity> entities = List.of(event.getChunk().getEntities());
+            this.stackManager.saveChunkEntities(event.getChunk(), entities, true);
+            this.entityCacheManager.uncacheChunkEntities(entities);
+        }
     }
 
     @EventHandler
@@ -0,0 +1,24 @@
+package dev.rosewood.rosestacker.listener.paper;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.NametagManager;
+import io.papermc.paper.event.player.PlayerUntrackEntityEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+public class PaperEntityTrackListener implements Listener {
+
+    private final NametagManager nametagManager;
+
+    public PaperEntityTrackListener(RosePlugin rosePlugin) {
+        this.nametagManager = rosePlugin.getManager(NametagManager.class);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerUntrackEntity(PlayerUntrackEntityEvent event) {
+        // The player will receive the real entity data when the entity is tracked again
+        this.nametagManager.forget(event.getPlayer(), event.getEntity());
+    }
+
+}
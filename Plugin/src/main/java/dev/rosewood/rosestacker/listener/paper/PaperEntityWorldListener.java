@@ -0,0 +1,42 @@
+package dev.rosewood.rosestacker.listener.paper;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosestacker.manager.EntityCacheManager;
+import dev.rosewood.rosestacker.manager.StackManager;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+public class PaperEntityWorldListener implements Listener {
+
+    private final StackManager stackManager;
+    private final EntityCacheManager entityCacheManager;
+
+    public PaperEntityWorldListener(RosePlugin rosePlugin) {
+        this.stackManager = rosePlugin.getManager(StackManager.class);
+        this.entityCacheManager = rosePlugin.getManager(EntityCacheManager.class);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityAddToWorld(EntityAddToWorldEvent event) {
+        // Also catches entities changing worlds, which don't fire a spawn event
+        if (this.entityCacheManager.isIncremental())
+            this.entityCacheManager.preCacheEntity(event.getEntity());
+
+        Entity entity = event.getEntity();
+        if ((entity instanceof LivingEntity livingEntity && !this.stackManager.isEntityStacked(livingEntity))
+                || (entity instanceof Item item && !this.stackManager.isItemStacked(item)))
+            this.stackManager.queueRegistration(entity.getUniqueId(), entity.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        this.entityCacheManager.uncacheEntity(event.getEntity());
+    }
+
+}
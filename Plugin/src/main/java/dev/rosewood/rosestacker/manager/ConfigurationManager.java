@@ -6,6 +6,7 @@ import dev.rosewood.rosegarden.config.RoseSetting;
 import dev.rosewood.rosegarden.manager.AbstractConfigurationManager;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
+import dev.rosewood.rosestacker.stack.EntityStackingAlgorithm;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
@@ -206,6 +207,26 @@ public class ConfigurationManager extends AbstractConfigurationManager {
                 "&7- &cRed &emeans the mob can not stack."
         ), "The lore to display on the stacking tool"),
 
+        PERFORMANCE_SETTINGS("performance-settings", null, "Settings that control how RoseStacker caches and schedules its work", "The defaults should work well for most servers, only change these if you know what they do"),
+        PERFORMANCE_ENTITY_CACHE_INCREMENTAL("performance-settings.entity-cache-incremental", true, "Should the nearby entity cache be kept up to date from entity spawn, remove, load and movement events?", "When disabled, the entire cache will be rebuilt every 3 seconds instead"),
+        PERFORMANCE_ENTITY_CACHE_MOVEMENT_FREQUENCY("performance-settings.entity-cache-movement-frequency", 100, "How often should every cached entity be checked for moving into a different chunk?", "Stacked entities and items are moved as soon as they cross a chunk border, this check catches everything else", "Only applies when entity-cache-incremental is enabled", "Values are in ticks, do not set lower than 1"),
+        PERFORMANCE_ENTITY_CACHE_REBUILD_FREQUENCY("performance-settings.entity-cache-rebuild-frequency", 6000, "How often should the entire entity cache be checked against the world for consistency?", "Only applies when entity-cache-incremental is enabled", "Values are in ticks, set to -1 to disable"),
+        PERFORMANCE_ENTITY_STACKING_ALGORITHM("performance-settings.entity-stacking-algorithm", EntityStackingAlgorithm.GREEDY.name(), Stream.concat(Arrays.stream(new String[] { "Which algorithm should be used to stack nearby entities together?", "Valid Values:" }), Arrays.stream(EntityStackingAlgorithm.values()).map(x -> "  " + x.name() + " - " + x.getDescription())).toArray(String[]::new)),
+        PERFORMANCE_DIRTY_STACKING_ENABLED("performance-settings.dirty-stacking-enabled", true, "Should stacking passes only try to stack entities and items that are new, have moved, or have changed size since the last pass?", "Stacks that haven't changed are still checked during a periodic full sweep"),
+        PERFORMANCE_DIRTY_STACKING_MOVE_THRESHOLD("performance-settings.dirty-stacking-move-threshold", 0.5, "How far does a stack need to move, in blocks, to be checked again?", "Only applies when dirty-stacking-enabled is enabled"),
+        PERFORMANCE_DIRTY_STACKING_FULL_SWEEP_INTERVAL("performance-settings.dirty-stacking-full-sweep-interval", 10, "Every how many stacking passes should all stacks be checked, even if they haven't changed?", "Only applies when dirty-stacking-enabled is enabled"),
+        PERFORMANCE_STACKING_PASS_TIME_BUDGET("performance-settings.stacking-pass-time-budget", -1, "How long can a single entity or item stacking pass run for each world?", "Passes that run out of time will continue where they left off on the next pass", "Values are in milliseconds, set to -1 for no limit"),
+        PERFORMANCE_UNSTACK_CHECK_CACHE_DURATION("performance-settings.unstack-check-cache-duration", 100, "How long can the result of checking if an entity stack should unstack be reused for?", "Stacks are always checked again right away when they change size or are interacted with", "Values are in ticks, set to 0 to check every stacking pass"),
+        PERFORMANCE_STACK_SIGNATURE_CACHE_DURATION("performance-settings.stack-signature-cache-duration", 100, "How long can the rarely changing attributes of an entity stack, such as its color, age, and variant, be cached for?", "Stacks with different cached attributes are rejected without checking any other stack conditions, matching stacks still check every condition", "Stacks are always checked again right away when they change size or are interacted with", "Values are in ticks, set to 0 to check every stack condition every time"),
+        PERFORMANCE_UNSTACKED_AUDIT_INTERVAL("performance-settings.unstacked-audit-interval", -1, "Every how many entity stacking passes should every entity in each world be checked for ones that were never stacked?", "New entities are normally stacked from spawn, load, teleport and transform events, this is only a fallback", "The number of entities each audit finds is shown in /rs stats", "Set to -1 to disable"),
+        PERFORMANCE_NAMETAG_RESEND_INTERVAL("performance-settings.nametag-resend-interval", 100, "How long should an unchanged stack nametag go without being sent to a player again?", "Nametags are only sent to a player when their name or visibility changes, or after this interval", "Values are in ticks, set to 0 to send every nametag update"),
+        PERFORMANCE_LINE_OF_SIGHT_CACHE_DURATION("performance-settings.line-of-sight-cache-duration", 10, "How long should wall detection results for nametags and holograms be reused for?", "Results are shared between checks from the same block to the same block and are discarded early when a block changes along the way", "Block changes without their own event, such as block physics updates, are only picked up once the result expires", "Values are in ticks, set to 0 to disable the cache"),
+        PERFORMANCE_LINE_OF_SIGHT_RAYCASTS_PER_TICK("performance-settings.line-of-sight-raycasts-per-tick", -1, "How many wall detection checks can be done per tick?", "Once reached, expired results are reused until the next tick", "Checks without a previous result are always done", "Set to -1 for no limit"),
+        PERFORMANCE_COMMIT_QUEUE_TIME_BUDGET("performance-settings.commit-queue-time-budget", -1, "How long can changes made by the stacking passes be applied for each world per tick?", "Entity removals, spawns and splits are queued and applied on the main thread once per tick", "Changes that don't fit within the budget are applied on the next tick", "Values are in milliseconds, set to -1 for no limit"),
+        PERFORMANCE_PARALLEL_STACKING_ENABLED("performance-settings.parallel-stacking-enabled", false, "Should the entity and item stacking passes of a world be split into square regions that are stacked in parallel?", "Useful for servers with a single large world, stacking threads are otherwise limited to one core per world", "Stack events may be called from multiple threads at the same time while this is enabled", "Falls back to a single thread if a merge radius is wider than half a region"),
+        PERFORMANCE_PARALLEL_STACKING_REGION_SIZE("performance-settings.parallel-stacking-region-size", 8, "How many chunks wide should each region be?", "Only applies when parallel-stacking-enabled is enabled"),
+        PERFORMANCE_PARALLEL_STACKING_THREADS("performance-settings.parallel-stacking-threads", -1, "How many threads should be used to stack regions in parallel?", "Only applies when parallel-stacking-enabled is enabled", "Set to -1 to use one less than the number of available processors"),
+
         MISC_SETTINGS("misc-settings", null, "Miscellaneous other settings for the plugin"),
         MISC_WORLDGUARD_REGION("misc-settings.worldguard-region", false, "Should a custom WorldGuard region named 'rosestacker' be registered and used to test entity stacking?", "Entity stacking within regions will only work if the result is ALLOW", "This setting will only be updated after a restart"),
         MISC_COREPROTECT_LOGGING("misc-settings.coreprotect-logging-enabled", true, "If CoreProtect is installed, should we log stacked block/spawner break/placing?"),
@@ -2,46 +2,86 @@ package dev.rosewood.rosestacker.manager;
 
 import dev.rosewood.rosegarden.RosePlugin;
 import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
+import dev.rosewood.rosestacker.stack.EntitySnapshot;
 import dev.rosewood.rosestacker.stack.StackingThread;
-import java.util.ArrayList;
+import dev.rosewood.rosestacker.utils.LongObjectMap;
+import dev.rosewood.rosestacker.utils.StackerUtils;
 import java.util.Collection;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntitySpawnEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.scheduler.BukkitTask;
-import org.bukkit.util.BoundingBox;
 
-public class EntityCacheManager extends Manager {
+public class EntityCacheManager extends Manager implements Listener {
 
-    private final Map<ChunkLocation, Collection<Entity>> entityCache;
-    private BukkitTask refreshTask;
+    private final Map<UUID, ChunkIndex> worldIndexes;
+    private final Map<Entity, CachedChunk> trackedEntities;
+    private BukkitTask refreshTask, movementTask;
+    private boolean incremental;
 
     public EntityCacheManager(RosePlugin rosePlugin) {
         super(rosePlugin);
-        this.entityCache = new ConcurrentHashMap<>();
+        this.worldIndexes = new ConcurrentHashMap<>();
+        this.trackedEntities = new ConcurrentHashMap<>();
+
+        Bukkit.getPluginManager().registerEvents(this, this.rosePlugin);
     }
 
     @Override
     public void reload() {
-        this.refreshTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::refresh, 5L, 60L);
+        this.incremental = Setting.PERFORMANCE_ENTITY_CACHE_INCREMENTAL.getBoolean();
+        if (this.incremental) {
+            long movementFrequency = Math.max(1, Setting.PERFORMANCE_ENTITY_CACHE_MOVEMENT_FREQUENCY.getLong());
+            this.movementTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::updateMovedEntities, movementFrequency, movementFrequency);
+
+            // Populate once up front, afterwards the full rebuild is only a consistency check
+            long rebuildFrequency = Setting.PERFORMANCE_ENTITY_CACHE_REBUILD_FREQUENCY.getLong();
+            if (rebuildFrequency > 0) {
+                this.refreshTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::refresh, 5L, rebuildFrequency);
+            } else {
+                this.refreshTask = Bukkit.getScheduler().runTaskLater(this.rosePlugin, this::refresh, 5L);
+            }
+        } else {
+            this.refreshTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::refresh, 5L, 60L);
+        }
     }
 
     @Override
     public void disable() {
-        this.entityCache.clear();
+        this.worldIndexes.clear();
+        this.trackedEntities.clear();
 
         if (this.refreshTask != null) {
             this.refreshTask.cancel();
             this.refreshTask = null;
         }
+
+        if (this.movementTask != null) {
+            this.movementTask.cancel();
+            this.movementTask = null;
+        }
     }
 
     /**
@@ -53,100 +93,484 @@ public class EntityCacheManager extends Manager {
      * @return A Set of nearby entities
      */
     public Collection<Entity> getNearbyEntities(Location center, double radius, Predicate<Entity> predicate) {
-        List<Entity> nearbyEntities = new ArrayList<>();
+        Set<Entity> nearbyEntities = new HashSet<>();
+        this.forEachNearbyChunk(center, radius, null, (chunkEntities, area) -> chunkEntities.forEach(entity -> {
+            if (area.contains(entity) && predicate.test(entity))
+                nearbyEntities.add(entity);
+        }));
+        return nearbyEntities;
+    }
+
+    /**
+     * Runs an action for each nearby entity of a given type.
+     * Only entities of the given type are visited and no intermediate collections are created.
+     * The action may be called from an async thread and must not modify the world.
+     *
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param entityType The type of entity to look for
+     * @param action The action to run for each matching entity
+     */
+    public void forEachNearbyEntity(Location center, double radius, EntityType entityType, Consumer<Entity> action) {
+        this.forEachNearbyEntity(center, radius, entityType, null, action);
+    }
+
+    /**
+     * Runs an action for each nearby entity of a given type, reading positions and validity from a snapshot.
+     * Entities that are not part of the snapshot are skipped.
+     *
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param entityType The type of entity to look for
+     * @param snapshot The snapshot to read entity state from, or null to read from the live entities
+     * @param action The action to run for each matching entity
+     */
+    public void forEachNearbyEntity(Location center, double radius, EntityType entityType, EntitySnapshot snapshot, Consumer<Entity> action) {
+        this.forEachNearbyChunk(center, radius, snapshot, (chunkEntities, area) -> chunkEntities.forEach(entityType, entity -> {
+            if (area.contains(entity))
+                action.accept(entity);
+        }));
+    }
+
+    /**
+     * Runs an action for each nearby entity with a type in the given collection.
+     * Only entities of the given types are visited and no intermediate collections are created.
+     * The action may be called from an async thread and must not modify the world.
+     *
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param entityTypes The types of entities to look for
+     * @param action The action to run for each matching entity
+     */
+    public void forEachNearbyEntity(Location center, double radius, Collection<EntityType> entityTypes, Consumer<Entity> action) {
+        this.forEachNearbyEntity(center, radius, entityTypes, null, action);
+    }
+
+    /**
+     * Runs an action for each nearby entity with a type in the given collection, reading positions and validity from a snapshot.
+     * Entities that are not part of the snapshot are skipped.
+     *
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param entityTypes The types of entities to look for
+     * @param snapshot The snapshot to read entity state from, or null to read from the live entities
+     * @param action The action to run for each matching entity
+     */
+    public void forEachNearbyEntity(Location center, double radius, Collection<EntityType> entityTypes, EntitySnapshot snapshot, Consumer<Entity> action) {
+        this.forEachNearbyChunk(center, radius, snapshot, (chunkEntities, area) -> {
+            for (EntityType entityType : entityTypes) {
+                chunkEntities.forEach(entityType, entity -> {
+                    if (area.contains(entity))
+                        action.accept(entity);
+                });
+            }
+        });
+    }
+
+    /**
+     * Gets entities in the Chunk of a Location
+     *
+     * @param location The Location of the Chunk
+     * @param predicate Conditions to be met
+     * @return A Set of entities in the chunk
+     */
+    public Collection<Entity> getEntitiesInChunk(Location location, Predicate<Entity> predicate) {
+        Set<Entity> chunkEntities = new HashSet<>();
+        ChunkEntities entities = this.getChunkEntities(location);
+        if (entities != null)
+            entities.forEach(entity -> {
+                if (entity.isValid() && predicate.test(entity))
+                    chunkEntities.add(entity);
+            });
+        return chunkEntities;
+    }
+
+    /**
+     * Runs an action for each entity of a given type in the Chunk of a Location.
+     * The action may be called from an async thread and must not modify the world.
+     *
+     * @param location The Location of the Chunk
+     * @param entityType The type of entity to look for
+     * @param action The action to run for each matching entity
+     */
+    public void forEachEntityInChunk(Location location, EntityType entityType, Consumer<Entity> action) {
+        this.forEachEntityInChunk(location, entityType, null, action);
+    }
+
+    /**
+     * Runs an action for each entity of a given type in the Chunk of a Location, reading validity from a snapshot.
+     * Entities that are not part of the snapshot are skipped.
+     *
+     * @param location The Location of the Chunk
+     * @param entityType The type of entity to look for
+     * @param snapshot The snapshot to read entity state from, or null to read from the live entities
+     * @param action The action to run for each matching entity
+     */
+    public void forEachEntityInChunk(Location location, EntityType entityType, EntitySnapshot snapshot, Consumer<Entity> action) {
+        ChunkEntities entities = this.getChunkEntities(location);
+        if (entities != null)
+            entities.forEach(entityType, entity -> {
+                if (snapshot == null ? entity.isValid() : snapshot.containsValid(entity))
+                    action.accept(entity);
+            });
+    }
+
+    private ChunkEntities getChunkEntities(Location location) {
+        World world = location.getWorld();
+        if (world == null)
+            return null;
+
+        ChunkIndex chunkIndex = this.worldIndexes.get(world.getUID());
+        if (chunkIndex == null)
+            return null;
+
+        return chunkIndex.get(StackerUtils.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    private void forEachNearbyChunk(Location center, double radius, EntitySnapshot snapshot, BiConsumer<ChunkEntities, SearchArea> action) {
         World world = center.getWorld();
         if (world == null)
-            return nearbyEntities;
+            return;
 
-        BoundingBox boundingBox = new BoundingBox(
+        ChunkIndex chunkIndex = this.worldIndexes.get(world.getUID());
+        if (chunkIndex == null)
+            return;
+
+        SearchArea area = new SearchArea(
                 center.getX() - radius,
                 center.getY() - radius,
                 center.getZ() - radius,
                 center.getX() + radius,
                 center.getY() + radius,
-                center.getZ() + radius
+                center.getZ() + radius,
+                snapshot
         );
 
-        int minX = (int) boundingBox.getMinX() >> 4;
-        int maxX = (int) boundingBox.getMaxX() >> 4;
-        int minZ = (int) boundingBox.getMinZ() >> 4;
-        int maxZ = (int) boundingBox.getMaxZ() >> 4;
+        int minX = Location.locToBlock(area.minX()) >> 4;
+        int maxX = Location.locToBlock(area.maxX()) >> 4;
+        int minZ = Location.locToBlock(area.minZ()) >> 4;
+        int maxZ = Location.locToBlock(area.maxZ()) >> 4;
 
         for (int x = minX; x <= maxX; x++) {
             for (int z = minZ; z <= maxZ; z++) {
-                Collection<Entity> entities = this.entityCache.get(new ChunkLocation(world.getName(), x, z));
+                ChunkEntities entities = chunkIndex.get(StackerUtils.getChunkKey(x, z));
                 if (entities != null)
-                    nearbyEntities.addAll(entities);
+                    action.accept(entities, area);
             }
         }
+    }
 
-        return nearbyEntities.stream()
-                .filter(Entity::isValid)
-                .filter(x -> boundingBox.contains(x.getLocation().toVector()))
-                .filter(predicate)
-                .collect(Collectors.toSet());
+    /**
+     * Forces an entry into the cache, used for newly spawned entities
+     *
+     * @param entity The entity to cache
+     */
+    public void preCacheEntity(Entity entity) {
+        if (!isCacheable(entity))
+            return;
+
+        Location location = entity.getLocation();
+        this.moveEntity(entity, new CachedChunk(entity.getWorld().getUID(), StackerUtils.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4)));
     }
 
     /**
-     * Gets entities in the Chunk of a Location
+     * Moves a cached entity into a different chunk of its world, used by the stacking threads which already see stacked
+     * entities and items cross chunk borders while capturing their positions. Must be called on the main thread.
      *
-     * @param location The Location of the Chunk
-     * @param predicate Conditions to be met
-     * @return A Set of entities in the chunk
+     * @param entity The entity that moved
+     * @param chunkKey The packed key of the chunk the entity is now in, see {@link StackerUtils#getChunkKey(int, int)}
      */
-    public Collection<Entity> getEntitiesInChunk(Location location, Predicate<Entity> predicate) {
-        World world = location.getWorld();
-        if (world == null)
-            return new ArrayList<>();
+    public void moveCachedEntity(Entity entity, long chunkKey) {
+        if (!this.incremental)
+            return;
 
-        Collection<Entity> entities = this.entityCache.get(new ChunkLocation(world.getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4));
-        if (entities == null)
-            return new ArrayList<>();
+        CachedChunk current = this.trackedEntities.get(entity);
+        if (current != null && current.chunkKey() != chunkKey)
+            this.moveEntity(entity, new CachedChunk(current.world(), chunkKey));
+    }
 
-        return entities.stream()
-                .filter(Entity::isValid)
-                .filter(predicate)
-                .collect(Collectors.toSet());
+    /**
+     * Removes an entry from the cache, used for entities that have been removed from the world
+     *
+     * @param entity The entity to remove
+     */
+    public void uncacheEntity(Entity entity) {
+        CachedChunk cachedChunk = this.trackedEntities.remove(entity);
+        if (cachedChunk != null)
+            this.removeFromBucket(entity, cachedChunk);
     }
 
     /**
-     * Forces an entry into the cache, used for newly spawned entities
+     * Caches all entities that were just loaded in a chunk
      *
-     * @param entity The entity to cache
+     * @param entities The entities that were loaded
      */
-    public void preCacheEntity(Entity entity) {
-        Location location = entity.getLocation();
-        ChunkLocation chunkLocation = new ChunkLocation(entity.getWorld().getName(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
-        Collection<Entity> entities = this.entityCache.get(chunkLocation);
-        if (entities == null) {
-            entities = new LinkedBlockingDeque<>();
-            this.entityCache.put(chunkLocation, entities);
+    public void cacheChunkEntities(Collection<Entity> entities) {
+        if (this.incremental)
+            entities.forEach(this::preCacheEntity);
+    }
+
+    /**
+     * Removes all entities that were just unloaded in a chunk from the cache
+     *
+     * @param entities The entities that were unloaded
+     */
+    public void uncacheChunkEntities(Collection<Entity> entities) {
+        if (this.incremental)
+            entities.forEach(this::uncacheEntity);
+    }
+
+    /**
+     * @return true if the cache is kept up to date from events, false if it is periodically rebuilt
+     */
+    public boolean isIncremental() {
+        return this.incremental;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntitySpawn(EntitySpawnEvent event) {
+        if (this.incremental)
+            this.preCacheEntity(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityDeath(EntityDeathEvent event) {
+        if (this.incremental)
+            this.uncacheEntity(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        this.worldIndexes.remove(worldId);
+        this.trackedEntities.values().removeIf(x -> x.world().equals(worldId));
+    }
+
+    /**
+     * Moves tracked entities between chunk buckets if they have crossed a chunk border since the last check.
+     * Stacked entities and items are already moved as they cross borders, see {@link #moveCachedEntity(Entity, long)},
+     * so this mostly catches entities that aren't stacked and changes of world.
+     * Entities that are no longer valid are dropped from the cache, this also covers removals we don't get events for.
+     */
+    private void updateMovedEntities() {
+        Location location = new Location(null, 0, 0, 0);
+        Iterator<Entry<Entity, CachedChunk>> iterator = this.trackedEntities.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Entity, CachedChunk> entry = iterator.next();
+            Entity entity = entry.getKey();
+            CachedChunk current = entry.getValue();
+            if (!entity.isValid()) {
+                iterator.remove();
+                this.removeFromBucket(entity, current);
+                continue;
+            }
+
+            entity.getLocation(location);
+            World world = location.getWorld();
+            if (world == null)
+                continue;
+
+            long chunkKey = StackerUtils.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+            if (current.chunkKey() != chunkKey || !current.world().equals(world.getUID()))
+                this.moveEntity(entity, new CachedChunk(world.getUID(), chunkKey));
         }
-        entities.add(entity);
+    }
+
+    private void moveEntity(Entity entity, CachedChunk cachedChunk) {
+        CachedChunk previous = this.trackedEntities.put(entity, cachedChunk);
+        if (cachedChunk.equals(previous))
+            return;
+
+        if (previous != null)
+            this.removeFromBucket(entity, previous);
+        this.worldIndexes.computeIfAbsent(cachedChunk.world(), x -> new ChunkIndex()).add(cachedChunk.chunkKey(), entity);
+    }
+
+    private void removeFromBucket(Entity entity, CachedChunk cachedChunk) {
+        ChunkIndex chunkIndex = this.worldIndexes.get(cachedChunk.world());
+        if (chunkIndex != null)
+            chunkIndex.remove(cachedChunk.chunkKey(), entity);
     }
 
     private void refresh() {
-        synchronized (this.entityCache) {
-            this.entityCache.clear();
-            for (StackingThread stackingThread : this.rosePlugin.getManager(StackManager.class).getStackingThreads().values()) {
-                World world = stackingThread.getTargetWorld();
-                for (Entity entity : world.getEntities()) {
-                    EntityType type = entity.getType();
-                    if (type != EntityType.DROPPED_ITEM && (!type.isAlive() || type == EntityType.PLAYER || type == EntityType.ARMOR_STAND))
-                        continue;
-
-                    ChunkLocation chunkLocation = new ChunkLocation(world.getName(), entity.getLocation().getBlockX() >> 4, entity.getLocation().getBlockZ() >> 4);
-                    Collection<Entity> entities = this.entityCache.get(chunkLocation);
-                    if (entities == null) {
-                        entities = new LinkedBlockingDeque<>();
-                        this.entityCache.put(chunkLocation, entities);
-                    }
-                    entities.add(entity);
-                }
+        // A full rebuild is only needed when we aren't being kept up to date by events
+        if (!this.incremental) {
+            this.worldIndexes.values().forEach(ChunkIndex::clear);
+            this.trackedEntities.clear();
+        }
+
+        for (StackingThread stackingThread : this.rosePlugin.getManager(StackManager.class).getStackingThreads().values())
+            for (Entity entity : stackingThread.getTargetWorld().getEntities())
+                this.preCacheEntity(entity);
+
+        if (this.incremental)
+            this.updateMovedEntities();
+    }
+
+    private static boolean isCacheable(Entity entity) {
+        EntityType type = entity.getType();
+        return type == EntityType.DROPPED_ITEM || (type.isAlive() && type != EntityType.PLAYER && type != EntityType.ARMOR_STAND);
+    }
+
+    private record CachedChunk(UUID world, long chunkKey) { }
+
+    /**
+     * An axis-aligned search box, matches the bounds semantics of {@link org.bukkit.util.BoundingBox#contains(double, double, double)}.
+     * Entities are tested against the snapshot if one is given, otherwise against their live state.
+     */
+    private record SearchArea(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, EntitySnapshot snapshot) {
+
+        /**
+         * Entity locations are read into a reusable per-thread Location so testing doesn't allocate
+         */
+        private static final ThreadLocal<Location> LOCATION = ThreadLocal.withInitial(() -> new Location(null, 0, 0, 0));
+
+        public boolean contains(Entity entity) {
+            double x, y, z;
+            if (this.snapshot != null) {
+                int index = this.snapshot.indexOf(entity);
+                if (index == EntitySnapshot.NOT_FOUND || !this.snapshot.isValid(index))
+                    return false;
+
+                x = this.snapshot.getX(index);
+                y = this.snapshot.getY(index);
+                z = this.snapshot.getZ(index);
+            } else {
+                if (!entity.isValid())
+                    return false;
+
+                Location location = entity.getLocation(LOCATION.get());
+                x = location.getX();
+                y = location.getY();
+                z = location.getZ();
             }
+
+            return x >= this.minX && x < this.maxX
+                    && y >= this.minY && y < this.maxY
+                    && z >= this.minZ && z < this.maxZ;
         }
+
     }
 
-    private record ChunkLocation(String world, int x, int z) { }
+    /**
+     * Entity buckets for a single world, keyed by packed chunk coordinates.
+     * Writes only happen on the main thread, reads from the stacking threads are optimistic and fall back to a read lock.
+     */
+    private static class ChunkIndex {
+
+        private final LongObjectMap<ChunkEntities> chunks;
+        private final StampedLock lock;
+
+        public ChunkIndex() {
+            this.chunks = new LongObjectMap<>(256);
+            this.lock = new StampedLock();
+        }
+
+        public ChunkEntities get(long chunkKey) {
+            long stamp = this.lock.tryOptimisticRead();
+            ChunkEntities entities = this.chunks.get(chunkKey);
+            if (this.lock.validate(stamp))
+                return entities;
+
+            stamp = this.lock.readLock();
+            try {
+                return this.chunks.get(chunkKey);
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        public void add(long chunkKey, Entity entity) {
+            long stamp = this.lock.writeLock();
+            try {
+                this.chunks.computeIfAbsent(chunkKey, x -> new ChunkEntities()).add(entity);
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        public void remove(long chunkKey, Entity entity) {
+            long stamp = this.lock.writeLock();
+            try {
+                ChunkEntities entities = this.chunks.get(chunkKey);
+                if (entities != null && entities.remove(entity) && entities.isEmpty())
+                    this.chunks.remove(chunkKey);
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+        public void clear() {
+            long stamp = this.lock.writeLock();
+            try {
+                this.chunks.clear();
+            } finally {
+                this.lock.unlockWrite(stamp);
+            }
+        }
+
+    }
+
+    /**
+     * The entities in a single chunk, bucketed by EntityType so type queries never visit foreign entities.
+     * Buckets are created lazily and are safe to iterate while being modified.
+     */
+    private static class ChunkEntities {
+
+        private static final EntityType[] ENTITY_TYPES = EntityType.values();
+
+        private final AtomicReferenceArray<Set<Entity>> buckets;
+        private final AtomicInteger size;
+
+        public ChunkEntities() {
+            this.buckets = new AtomicReferenceArray<>(ENTITY_TYPES.length);
+            this.size = new AtomicInteger();
+        }
+
+        public void add(Entity entity) {
+            int index = entity.getType().ordinal();
+            Set<Entity> bucket = this.buckets.get(index);
+            if (bucket == null) {
+                bucket = ConcurrentHashMap.newKeySet();
+                if (!this.buckets.compareAndSet(index, null, bucket))
+                    bucket = this.buckets.get(index);
+            }
+
+            if (bucket.add(entity))
+                this.size.incrementAndGet();
+        }
+
+        public boolean remove(Entity entity) {
+            Set<Entity> bucket = this.buckets.get(entity.getType().ordinal());
+            if (bucket == null || !bucket.remove(entity))
+                return false;
+
+            this.size.decrementAndGet();
+            return true;
+        }
+
+        public boolean isEmpty() {
+            return this.size.get() <= 0;
+        }
+
+        public void forEach(EntityType entityType, Consumer<Entity> action) {
+            Set<Entity> bucket = this.buckets.get(entityType.ordinal());
+            if (bucket == null)
+                return;
+
+            bucket.forEach(action);
+        }
+
+        public void forEach(Consumer<Entity> action) {
+            for (int i = 0; i < ENTITY_TYPES.length; i++) {
+                Set<Entity> bucket = this.buckets.get(i);
+                if (bucket == null)
+                    continue;
+
+                bucket.forEach(action);
+            }
+        }
+
+    }
 
 }
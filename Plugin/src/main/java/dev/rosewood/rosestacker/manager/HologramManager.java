@@ -6,13 +6,18 @@ import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.nms.hologram.Hologram;
+import dev.rosewood.rosestacker.utils.LongObjectMap;
+import dev.rosewood.rosestacker.utils.StackerUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -22,16 +27,24 @@ import org.bukkit.scheduler.BukkitTask;
 
 public class HologramManager extends Manager implements Listener {
 
-    private final Map<Location, Hologram> holograms;
+    private final Map<UUID, LongObjectMap<Hologram>> holograms;
+    private final Map<UUID, Map<Long, Set<Hologram>>> hologramsByChunk;
+    private final Map<UUID, PlayerView> playerViews;
+    private final Map<Hologram, Runnable> pendingRefreshes;
     private final NMSHandler nmsHandler;
+    private LineOfSightManager lineOfSightManager;
     private BukkitTask watcherTask;
     private double renderDistanceSqrd;
+    private int renderChunkRadius;
     private boolean hideThroughWalls;
 
     public HologramManager(RosePlugin rosePlugin) {
         super(rosePlugin);
 
         this.holograms = new ConcurrentHashMap<>();
+        this.hologramsByChunk = new ConcurrentHashMap<>();
+        this.playerViews = new ConcurrentHashMap<>();
+        this.pendingRefreshes = new ConcurrentHashMap<>();
         this.nmsHandler = NMSAdapter.getHandler();
 
         Bukkit.getPluginManager().registerEvents(this, this.rosePlugin);
@@ -39,8 +52,10 @@ public class HologramManager extends Manager implements Listener {
 
     @Override
     public void reload() {
+        this.lineOfSightManager = this.rosePlugin.getManager(LineOfSightManager.class);
         this.watcherTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::updateWatchers, 0L, Setting.HOLOGRAM_UPDATE_FREQUENCY.getLong());
         this.renderDistanceSqrd = Setting.BLOCK_DYNAMIC_TAG_VIEW_RANGE.getDouble() * Setting.BLOCK_DYNAMIC_TAG_VIEW_RANGE.getDouble();
+        this.renderChunkRadius = (int) Math.ceil(Setting.BLOCK_DYNAMIC_TAG_VIEW_RANGE.getDouble() / 16);
         this.hideThroughWalls = Setting.BLOCK_DYNAMIC_TAG_VIEW_RANGE_WALL_DETECTION_ENABLED.getBoolean();
     }
 
@@ -51,22 +66,85 @@ public class HologramManager extends Manager implements Listener {
             this.watcherTask = null;
         }
 
-        this.holograms.values().forEach(Hologram::delete);
+        for (LongObjectMap<Hologram> worldHolograms : this.holograms.values()) {
+            synchronized (worldHolograms) {
+                worldHolograms.forEachValue(Hologram::delete);
+            }
+        }
         this.holograms.clear();
+        this.hologramsByChunk.clear();
+        this.playerViews.clear();
+        this.pendingRefreshes.clear();
     }
 
     private void updateWatchers() {
         Collection<? extends Player> players = Bukkit.getOnlinePlayers();
-        for (Player player : players)
-            for (Hologram hologram : this.holograms.values())
-                this.updateWatcher(player, hologram);
+        this.nmsHandler.beginPacketBatch();
+        try {
+            for (Player player : players)
+                this.updatePlayer(player);
+        } finally {
+            this.nmsHandler.flushPacketBatch();
+        }
+    }
+
+    /**
+     * Updates the holograms a player is watching. The holograms near the player are only looked up again when the
+     * player crosses into a different chunk, otherwise only the holograms already near the player are checked.
+     *
+     * @param player The player to update
+     */
+    private void updatePlayer(Player player) {
+        Location location = player.getLocation();
+        UUID worldId = player.getWorld().getUID();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+
+        PlayerView view = this.playerViews.get(player.getUniqueId());
+        if (view == null || !view.isAt(worldId, chunkX, chunkZ)) {
+            PlayerView newView = new PlayerView(worldId, chunkX, chunkZ);
+            this.playerViews.put(player.getUniqueId(), newView);
+
+            Map<Long, Set<Hologram>> chunks = this.hologramsByChunk.get(worldId);
+            if (chunks != null) {
+                for (int x = chunkX - this.renderChunkRadius; x <= chunkX + this.renderChunkRadius; x++) {
+                    for (int z = chunkZ - this.renderChunkRadius; z <= chunkZ + this.renderChunkRadius; z++) {
+                        Set<Hologram> holograms = chunks.get(StackerUtils.getChunkKey(x, z));
+                        if (holograms != null)
+                            newView.nearbyHolograms().addAll(holograms);
+                    }
+                }
+            }
+
+            // Stop watching the holograms left behind
+            if (view != null)
+                for (Hologram hologram : view.nearbyHolograms())
+                    if (!newView.nearbyHolograms().contains(hologram))
+                        hologram.removeWatcher(player);
+
+            view = newView;
+        }
+
+        for (Hologram hologram : view.nearbyHolograms())
+            this.updateWatcher(player, hologram);
     }
 
     private void updateWatcher(Player player, Hologram hologram) {
         if (this.isPlayerInRange(player, hologram.getLocation())) {
+            if (!hologram.getWatchers().contains(player)) {
+                // Bring the text up to date before it's shown for the first time since refreshes were skipped
+                Runnable refresh = this.pendingRefreshes.remove(hologram);
+                if (refresh != null) {
+                    refresh.run();
+                    Set<Hologram> chunkHolograms = this.getChunkHolograms(hologram.getLocation(), false);
+                    if (chunkHolograms == null || !chunkHolograms.contains(hologram))
+                        return; // The refresh deleted or replaced the hologram
+                }
+            }
+
             hologram.addWatcher(player);
             if (this.hideThroughWalls)
-                hologram.setVisibility(player, this.nmsHandler.hasLineOfSight(player, hologram.getDisplayLocation()));
+                hologram.setVisibility(player, this.lineOfSightManager.hasLineOfSight(player, hologram.getDisplayLocation()));
         } else {
             hologram.removeWatcher(player);
         }
@@ -78,51 +156,161 @@ public class HologramManager extends Manager implements Listener {
 
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        ThreadUtils.runAsync(() -> {
-            Player player = event.getPlayer();
-            for (Hologram hologram : this.holograms.values())
-                this.updateWatcher(player, hologram);
-        });
+        ThreadUtils.runAsync(() -> this.updatePlayer(event.getPlayer()));
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         ThreadUtils.runAsync(() -> {
             Player player = event.getPlayer();
-            for (Hologram hologram : this.holograms.values())
-                hologram.removeWatcher(player);
+            PlayerView view = this.playerViews.remove(player.getUniqueId());
+            if (view != null)
+                for (Hologram hologram : view.nearbyHolograms())
+                    hologram.removeWatcher(player);
         });
     }
 
     /**
-     * Creates or updates a hologram at the given location
+     * Creates or updates the hologram of a block, the hologram is centered on the block and raised by a height offset.
+     * An existing hologram with a different height offset is moved.
      *
-     * @param location The location of the hologram
+     * @param block The block the hologram belongs to
+     * @param heightOffset How far above the bottom of the block the hologram is
      * @param text The text for the hologram
      */
-    public void createOrUpdateHologram(Location location, List<String> text) {
-        Hologram hologram = this.holograms.get(location);
+    public void createOrUpdateHologram(Block block, double heightOffset, List<String> text) {
+        Hologram hologram = this.getHologram(block);
+        if (hologram != null && hologram.getLocation().getY() != block.getY() + heightOffset) {
+            this.deleteHologram(block);
+            hologram = null;
+        }
+
         if (hologram == null) {
+            Location location = block.getLocation().add(0.5, heightOffset, 0.5);
             hologram = this.nmsHandler.createHologram(location, text);
-            this.holograms.put(location, hologram);
-            for (Player player : Bukkit.getOnlinePlayers())
-                this.updateWatcher(player, hologram);
+            LongObjectMap<Hologram> worldHolograms = this.holograms.computeIfAbsent(block.getWorld().getUID(), x -> new LongObjectMap<>());
+            synchronized (worldHolograms) {
+                worldHolograms.put(StackerUtils.getBlockKey(block.getX(), block.getY(), block.getZ()), hologram);
+            }
+            this.getChunkHolograms(location, true).add(hologram);
+
+            // Let players that already have this chunk in view pick up the new hologram
+            UUID worldId = block.getWorld().getUID();
+            int chunkX = block.getX() >> 4;
+            int chunkZ = block.getZ() >> 4;
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                PlayerView view = this.playerViews.get(player.getUniqueId());
+                if (view != null && view.isNear(worldId, chunkX, chunkZ, this.renderChunkRadius)) {
+                    view.nearbyHolograms().add(hologram);
+                    this.updateWatcher(player, hologram);
+                }
+            }
         } else {
             hologram.setText(text);
         }
     }
 
     /**
-     * Deletes a hologram at a given location if one exists
+     * Checks if the hologram of a block exists and is being watched by at least one player
+     *
+     * @param block The block the hologram belongs to
+     * @return true if the hologram is being watched, false if it has no watchers or doesn't exist
+     */
+    public boolean isWatched(Block block) {
+        Hologram hologram = this.getHologram(block);
+        return hologram != null && !hologram.getWatchers().isEmpty();
+    }
+
+    /**
+     * Checks if a block has a hologram
+     *
+     * @param block The block the hologram belongs to
+     * @return true if the hologram exists, false otherwise
+     */
+    public boolean hasHologram(Block block) {
+        return this.getHologram(block) != null;
+    }
+
+    /**
+     * Defers refreshing the text of an unwatched hologram until a player starts watching it.
+     * Only the most recent refresh is kept for each hologram.
      *
-     * @param location The location of the hologram
+     * @param block The block the hologram belongs to
+     * @param refresh The action that updates the hologram text
      */
-    public void deleteHologram(Location location) {
-        Hologram hologram = this.holograms.get(location);
+    public void deferRefresh(Block block, Runnable refresh) {
+        Hologram hologram = this.getHologram(block);
+        if (hologram != null)
+            this.pendingRefreshes.put(hologram, refresh);
+    }
+
+    /**
+     * Deletes the hologram of a block if one exists
+     *
+     * @param block The block the hologram belongs to
+     */
+    public void deleteHologram(Block block) {
+        LongObjectMap<Hologram> worldHolograms = this.holograms.get(block.getWorld().getUID());
+        if (worldHolograms == null)
+            return;
+
+        Hologram hologram;
+        synchronized (worldHolograms) {
+            hologram = worldHolograms.remove(StackerUtils.getBlockKey(block.getX(), block.getY(), block.getZ()));
+        }
+
         if (hologram != null) {
+            this.pendingRefreshes.remove(hologram);
+            Set<Hologram> chunkHolograms = this.getChunkHolograms(hologram.getLocation(), false);
+            if (chunkHolograms != null)
+                chunkHolograms.remove(hologram);
+
+            for (PlayerView view : this.playerViews.values())
+                view.nearbyHolograms().remove(hologram);
+
             hologram.delete();
-            this.holograms.remove(location);
         }
     }
 
+    private Hologram getHologram(Block block) {
+        LongObjectMap<Hologram> worldHolograms = this.holograms.get(block.getWorld().getUID());
+        if (worldHolograms == null)
+            return null;
+
+        synchronized (worldHolograms) {
+            return worldHolograms.get(StackerUtils.getBlockKey(block.getX(), block.getY(), block.getZ()));
+        }
+    }
+
+    private Set<Hologram> getChunkHolograms(Location location, boolean create) {
+        UUID worldId = location.getWorld().getUID();
+        long chunkKey = StackerUtils.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        if (!create) {
+            Map<Long, Set<Hologram>> chunks = this.hologramsByChunk.get(worldId);
+            return chunks == null ? null : chunks.get(chunkKey);
+        }
+
+        return this.hologramsByChunk.computeIfAbsent(worldId, x -> new ConcurrentHashMap<>())
+                .computeIfAbsent(chunkKey, x -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * The chunk a player was last seen in and the holograms in the chunks around it
+     */
+    private record PlayerView(UUID worldId, int chunkX, int chunkZ, Set<Hologram> nearbyHolograms) {
+
+        PlayerView(UUID worldId, int chunkX, int chunkZ) {
+            this(worldId, chunkX, chunkZ, ConcurrentHashMap.newKeySet());
+        }
+
+        boolean isAt(UUID worldId, int chunkX, int chunkZ) {
+            return this.chunkX == chunkX && this.chunkZ == chunkZ && this.worldId.equals(worldId);
+        }
+
+        boolean isNear(UUID worldId, int chunkX, int chunkZ, int chunkRadius) {
+            return Math.abs(this.chunkX - chunkX) <= chunkRadius && Math.abs(this.chunkZ - chunkZ) <= chunkRadius && this.worldId.equals(worldId);
+        }
+
+    }
+
 }
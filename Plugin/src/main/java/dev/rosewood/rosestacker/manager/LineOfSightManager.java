@@ -0,0 +1,318 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
+import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.nms.NMSHandler;
+import dev.rosewood.rosestacker.utils.StackerUtils;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.data.Openable;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockRedstoneEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Answers whether players can see stack nametags and holograms, caching raycasts by the block the player's eyes are in
+ * and the block of the target. Results are reused until they expire or a block changes in a chunk the ray may pass
+ * through. Raycasts can be limited per tick, in which case the last known result is reused once the limit is reached.
+ */
+public class LineOfSightManager extends Manager implements Listener {
+
+    /**
+     * How many cache durations an expired result is kept around so it can be reused when the raycast budget runs out
+     */
+    private static final int STALE_RETENTION_MULTIPLIER = 5;
+
+    private final Map<SightKey, SightResult> results;
+    private final Map<UUID, Map<Long, Long>> chunkChangeTimes;
+    private final AtomicInteger raycastsRemaining;
+    private final NMSHandler nmsHandler;
+    private BukkitTask budgetTask;
+    private BukkitTask cleanupTask;
+    private long cacheDurationNanos;
+    private int raycastsPerTick;
+
+    public LineOfSightManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.results = new ConcurrentHashMap<>();
+        this.chunkChangeTimes = new ConcurrentHashMap<>();
+        this.raycastsRemaining = new AtomicInteger();
+        this.nmsHandler = NMSAdapter.getHandler();
+
+        Bukkit.getPluginManager().registerEvents(this, this.rosePlugin);
+    }
+
+    @Override
+    public void reload() {
+        long cacheDuration = Setting.PERFORMANCE_LINE_OF_SIGHT_CACHE_DURATION.getLong();
+        this.cacheDurationNanos = TimeUnit.MILLISECONDS.toNanos(cacheDuration * 50);
+        this.raycastsPerTick = Setting.PERFORMANCE_LINE_OF_SIGHT_RAYCASTS_PER_TICK.getInt();
+        this.raycastsRemaining.set(this.raycastsPerTick);
+
+        if (this.raycastsPerTick >= 0)
+            this.budgetTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, () -> this.raycastsRemaining.set(this.raycastsPerTick), 1L, 1L);
+        if (cacheDuration > 0)
+            this.cleanupTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::removeExpired, cacheDuration, cacheDuration);
+    }
+
+    @Override
+    public void disable() {
+        if (this.budgetTask != null) {
+            this.budgetTask.cancel();
+            this.budgetTask = null;
+        }
+
+        if (this.cleanupTask != null) {
+            this.cleanupTask.cancel();
+            this.cleanupTask = null;
+        }
+
+        this.results.clear();
+        this.chunkChangeTimes.clear();
+    }
+
+    /**
+     * Checks if a player can see an entity, the ray is cast towards the eyes of living entities and near the top of
+     * other entities
+     *
+     * @param player The player
+     * @param entity The entity
+     * @return true if the player can see the entity, false otherwise
+     */
+    public boolean hasLineOfSight(Player player, Entity entity) {
+        Location location;
+        if (entity instanceof LivingEntity livingEntity) {
+            location = livingEntity.getEyeLocation();
+        } else {
+            location = entity.getLocation().add(0, entity.getHeight() * 0.85, 0);
+        }
+        return this.hasLineOfSight(player, location);
+    }
+
+    /**
+     * Checks if a player can see a location
+     *
+     * @param player The player
+     * @param location The location, must be in the same world as the player
+     * @return true if the player can see the location, false otherwise
+     */
+    public boolean hasLineOfSight(Player player, Location location) {
+        if (this.cacheDurationNanos <= 0)
+            return this.nmsHandler.hasLineOfSight(player, location);
+
+        Location eyeLocation = player.getEyeLocation();
+        World world = player.getWorld();
+        SightKey key = new SightKey(
+                world.getUID(),
+                StackerUtils.getBlockKey(eyeLocation.getBlockX(), eyeLocation.getBlockY(), eyeLocation.getBlockZ()),
+                StackerUtils.getBlockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ())
+        );
+
+        long now = System.nanoTime();
+        SightResult result = this.results.get(key);
+        if (result != null) {
+            if (now < result.expiry() && !this.hasChangedSince(key, result.createdAt()))
+                return result.visible();
+
+            // Reuse the stale result rather than going over budget
+            if (!this.consumeRaycast())
+                return result.visible();
+        } else {
+            // Nothing to reuse, always cast the ray so an unknown target is never guessed
+            this.consumeRaycast();
+        }
+
+        boolean visible = this.nmsHandler.hasLineOfSight(player, location);
+        this.results.put(key, new SightResult(visible, now, now + this.cacheDurationNanos));
+        return visible;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        this.markChanged(event.getBlock());
+        this.markChanged(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        this.markChanged(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        this.markChanged(event.getBlock());
+        this.markMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        this.markChanged(event.getBlock());
+        this.markMoved(event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        this.markChanged(event.getBlock());
+        this.markChanged(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBlockRedstone(BlockRedstoneEvent event) {
+        // Covers doors, trapdoors and fence gates opened or closed by redstone
+        if (event.getOldCurrent() != event.getNewCurrent())
+            this.markChanged(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerInteract(PlayerInteractEvent event) {
+        Block block = event.getClickedBlock();
+        if (event.getAction() == Action.RIGHT_CLICK_BLOCK && block != null && block.getBlockData() instanceof Openable)
+            this.markChanged(block);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        UUID worldId = event.getWorld().getUID();
+        this.chunkChangeTimes.remove(worldId);
+        this.results.keySet().removeIf(x -> x.worldId().equals(worldId));
+    }
+
+    /**
+     * Takes a raycast from the budget for this tick
+     *
+     * @return true if there was budget left or there is no budget, false otherwise
+     */
+    private boolean consumeRaycast() {
+        if (this.raycastsPerTick < 0)
+            return true;
+        return this.raycastsRemaining.getAndDecrement() > 0;
+    }
+
+    /**
+     * Checks if a block has changed in any chunk between the two blocks of a key since a given time.
+     * A ray can only pass through chunks within the box spanned by its two ends.
+     */
+    private boolean hasChangedSince(SightKey key, long time) {
+        Map<Long, Long> changeTimes = this.chunkChangeTimes.get(key.worldId());
+        if (changeTimes == null || changeTimes.isEmpty())
+            return false;
+
+        int eyeChunkX = StackerUtils.getBlockKeyX(key.eyeBlock()) >> 4;
+        int eyeChunkZ = StackerUtils.getBlockKeyZ(key.eyeBlock()) >> 4;
+        int targetChunkX = StackerUtils.getBlockKeyX(key.targetBlock()) >> 4;
+        int targetChunkZ = StackerUtils.getBlockKeyZ(key.targetBlock()) >> 4;
+
+        for (int chunkX = Math.min(eyeChunkX, targetChunkX); chunkX <= Math.max(eyeChunkX, targetChunkX); chunkX++) {
+            for (int chunkZ = Math.min(eyeChunkZ, targetChunkZ); chunkZ <= Math.max(eyeChunkZ, targetChunkZ); chunkZ++) {
+                Long changeTime = changeTimes.get(StackerUtils.getChunkKey(chunkX, chunkZ));
+                if (changeTime != null && changeTime - time >= 0)
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void markChanged(Block block) {
+        if (this.cacheDurationNanos <= 0)
+            return;
+
+        this.chunkChangeTimes.computeIfAbsent(block.getWorld().getUID(), x -> new ConcurrentHashMap<>())
+                .put(StackerUtils.getChunkKey(block.getX() >> 4, block.getZ() >> 4), System.nanoTime());
+    }
+
+    private void markChanged(List<Block> blocks) {
+        for (Block block : blocks)
+            this.markChanged(block);
+    }
+
+    private void markMoved(List<Block> blocks, BlockFace direction) {
+        for (Block block : blocks) {
+            this.markChanged(block);
+            this.markChanged(block.getRelative(direction));
+        }
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        long staleCutoff = now - this.cacheDurationNanos * STALE_RETENTION_MULTIPLIER;
+        this.results.values().removeIf(x -> x.expiry() - staleCutoff < 0);
+
+        // Changes older than the cache duration can no longer invalidate a result that hasn't expired
+        long changeCutoff = now - this.cacheDurationNanos;
+        for (Map<Long, Long> changeTimes : this.chunkChangeTimes.values())
+            changeTimes.values().removeIf(x -> x - changeCutoff < 0);
+    }
+
+    private record SightKey(UUID worldId, long eyeBlock, long targetBlock) { }
+
+    private record SightResult(boolean visible, long createdAt, long expiry) { }
+
+}
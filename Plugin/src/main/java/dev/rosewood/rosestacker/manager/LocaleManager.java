@@ -21,7 +21,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.bukkit.Material;
@@ -30,15 +32,32 @@ import org.jetbrains.annotations.NotNull;
 
 public class LocaleManager extends AbstractLocaleManager {
 
+    /**
+     * The most stack sizes that rendered names are cached for per message and name, sizes past this are rendered each time
+     */
+    private static final int MAX_CACHED_AMOUNTS = 1024;
+
+    private final Map<String, List<LocaleTemplate>> templates;
+    private final Map<RenderedNameKey, Map<Integer, String>> renderedNames;
     private List<String> translationLocales;
 
     public LocaleManager(RosePlugin rosePlugin) {
         super(rosePlugin);
 
+        this.templates = new ConcurrentHashMap<>();
+        this.renderedNames = new ConcurrentHashMap<>();
         this.translationLocales = new ArrayList<>();
         this.fetchMinecraftTranslationLocales();
     }
 
+    @Override
+    public void reload() {
+        super.reload();
+
+        this.templates.clear();
+        this.renderedNames.clear();
+    }
+
     @SuppressWarnings("unchecked")
     @NotNull
     protected List<String> getLocaleStrings(String key) {
@@ -72,6 +91,68 @@ public class LocaleManager extends AbstractLocaleManager {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Gets the compiled templates of a list or single locale message, each message is only parsed once per reload
+     *
+     * @param messageKey The key of the message to get
+     * @return The compiled templates of the locale messages
+     */
+    public List<LocaleTemplate> getLocaleTemplates(String messageKey) {
+        return this.templates.computeIfAbsent(messageKey, key -> this.getLocaleStrings(key).stream().map(LocaleTemplate::compile).toList());
+    }
+
+    /**
+     * Gets the compiled template of a single locale message, list messages are joined with new lines and compiled
+     * again each time
+     *
+     * @param messageKey The key of the message to get
+     * @return The compiled template of the locale message
+     */
+    public LocaleTemplate getLocaleTemplate(String messageKey) {
+        List<LocaleTemplate> templates = this.getLocaleTemplates(messageKey);
+        if (templates.size() == 1)
+            return templates.get(0);
+        return LocaleTemplate.compile(String.join("\n", this.getLocaleStrings(messageKey)));
+    }
+
+    /**
+     * Gets a locale message with an %amount% and a %name% placeholder, such as the display name of a stack.
+     * Rendered messages are cached by name and amount, so only the first render for each stack size does any work.
+     *
+     * @param messageKey The key of the message to get
+     * @param name The value of the %name% placeholder, should be one of a limited set of names such as a stack type name
+     * @param amount The value of the %amount% placeholder
+     * @return The locale message with the placeholders applied
+     */
+    public String getStackDisplayMessage(String messageKey, String name, int amount) {
+        Map<Integer, String> amounts = this.renderedNames.computeIfAbsent(new RenderedNameKey(messageKey, name), x -> new ConcurrentHashMap<>());
+        String rendered = amounts.get(amount);
+        if (rendered != null)
+            return rendered;
+
+        rendered = this.renderStackDisplayMessage(messageKey, name, amount);
+        if (amounts.size() < MAX_CACHED_AMOUNTS)
+            amounts.put(amount, rendered);
+        return rendered;
+    }
+
+    /**
+     * Gets a locale message with an %amount% and a %name% placeholder without caching the result, for names that
+     * aren't limited such as custom names
+     *
+     * @param messageKey The key of the message to get
+     * @param name The value of the %name% placeholder
+     * @param amount The value of the %amount% placeholder
+     * @return The locale message with the placeholders applied
+     */
+    public String renderStackDisplayMessage(String messageKey, String name, int amount) {
+        return this.getLocaleTemplate(messageKey).render(placeholder -> switch (placeholder) {
+            case "amount" -> StackerUtils.formatNumber(amount);
+            case "name" -> name;
+            default -> null;
+        });
+    }
+
     public void fetchMinecraftTranslationLocales() {
         ThreadUtils.runAsync(() -> {
             List<String> locales = new ArrayList<>();
@@ -162,6 +243,103 @@ public class LocaleManager extends AbstractLocaleManager {
         return this.translationLocales;
     }
 
+    /**
+     * A locale message split once into literal text and %placeholder% slots, so it can be rendered without scanning the
+     * message again. Values are resolved by slot name when rendering, a value is only computed if the message uses it.
+     * Colors are translated after the values are inserted, the same as {@link #getLocaleMessages(String, StringPlaceholders)}.
+     */
+    public static final class LocaleTemplate {
+
+        private final String[] literals;
+        private final String[] slots;
+        private final int literalLength;
+
+        private LocaleTemplate(String[] literals, String[] slots) {
+            this.literals = literals;
+            this.slots = slots;
+            int literalLength = 0;
+            for (String literal : literals)
+                literalLength += literal.length();
+            this.literalLength = literalLength;
+        }
+
+        /**
+         * Compiles a message into a template
+         *
+         * @param message The message to compile
+         * @return the compiled template
+         */
+        public static LocaleTemplate compile(String message) {
+            List<String> literals = new ArrayList<>();
+            List<String> slots = new ArrayList<>();
+
+            int literalStart = 0;
+            int index = 0;
+            while (index < message.length()) {
+                int start = message.indexOf('%', index);
+                if (start == -1)
+                    break;
+
+                int end = message.indexOf('%', start + 1);
+                if (end == -1)
+                    break;
+
+                String slot = message.substring(start + 1, end);
+                if (slot.isEmpty() || slot.indexOf(' ') != -1) {
+                    // Not a placeholder, the closing % may start the next one
+                    index = end;
+                    continue;
+                }
+
+                literals.add(message.substring(literalStart, start));
+                slots.add(slot);
+                literalStart = index = end + 1;
+            }
+            literals.add(message.substring(literalStart));
+
+            return new LocaleTemplate(literals.toArray(String[]::new), slots.toArray(String[]::new));
+        }
+
+        /**
+         * @param placeholder The placeholder name, without the surrounding %
+         * @return true if the template contains the placeholder, false otherwise
+         */
+        public boolean hasPlaceholder(String placeholder) {
+            for (String slot : this.slots)
+                if (slot.equals(placeholder))
+                    return true;
+            return false;
+        }
+
+        /**
+         * Renders the template
+         *
+         * @param values Resolves the value of each placeholder by name, placeholders resolved to null are left as is
+         * @return the rendered and colored message
+         */
+        public String render(Function<String, String> values) {
+            if (this.slots.length == 0)
+                return HexUtils.colorify(this.literals[0]);
+
+            StringBuilder builder = new StringBuilder(this.literalLength + this.slots.length * 8);
+            for (int i = 0; i < this.slots.length; i++) {
+                builder.append(this.literals[i]);
+                String value = values.apply(this.slots[i]);
+                if (value != null) {
+                    builder.append(value);
+                } else {
+                    builder.append('%').append(this.slots[i]).append('%');
+                }
+            }
+            builder.append(this.literals[this.slots.length]);
+
+            return HexUtils.colorify(builder.toString());
+        }
+
+    }
+
+    private record RenderedNameKey(String messageKey, String name) { }
+
     public static class TranslationResponse {
 
         public enum Result {
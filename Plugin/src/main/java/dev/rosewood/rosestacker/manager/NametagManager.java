@@ -0,0 +1,157 @@
+package dev.rosewood.rosestacker.manager;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import dev.rosewood.rosegarden.manager.Manager;
+import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
+import dev.rosewood.rosestacker.nms.NMSAdapter;
+import dev.rosewood.rosestacker.nms.NMSHandler;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Sends stack nametags to players, skipping packets that would not change what the player already sees.
+ * Keeps the last name and visibility sent to each player for each entity id. Entries are dropped when the entity stops
+ * being tracked by the player, when the player leaves the world, and after a resend interval so that anything the
+ * server sends on its own is eventually corrected.
+ */
+public class NametagManager extends Manager implements Listener {
+
+    private final Map<UUID, Map<Integer, NametagState>> sentStates;
+    private final NMSHandler nmsHandler;
+    private BukkitTask cleanupTask;
+    private long resendIntervalNanos;
+
+    public NametagManager(RosePlugin rosePlugin) {
+        super(rosePlugin);
+
+        this.sentStates = new ConcurrentHashMap<>();
+        this.nmsHandler = NMSAdapter.getHandler();
+
+        Bukkit.getPluginManager().registerEvents(this, this.rosePlugin);
+    }
+
+    @Override
+    public void reload() {
+        long resendInterval = Setting.PERFORMANCE_NAMETAG_RESEND_INTERVAL.getLong();
+        this.resendIntervalNanos = TimeUnit.MILLISECONDS.toNanos(resendInterval * 50);
+        if (resendInterval > 0)
+            this.cleanupTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::removeExpired, resendInterval, resendInterval);
+    }
+
+    @Override
+    public void disable() {
+        if (this.cleanupTask != null) {
+            this.cleanupTask.cancel();
+            this.cleanupTask = null;
+        }
+
+        this.sentStates.clear();
+    }
+
+    /**
+     * Updates the nametag of an entity for a player if it differs from the last one sent
+     *
+     * @param player The player to send the nametag to
+     * @param entity The entity to update the nametag of
+     * @param customName The name to display
+     * @param customNameVisible true if the name should be visible without looking at the entity
+     */
+    public void updateNameTag(Player player, Entity entity, String customName, boolean customNameVisible) {
+        if (this.resendIntervalNanos <= 0) {
+            this.nmsHandler.updateEntityNameTagForPlayer(player, entity, customName, customNameVisible);
+            return;
+        }
+
+        Map<Integer, NametagState> states = this.getStates(player);
+        NametagState state = states.get(entity.getEntityId());
+        long now = System.nanoTime();
+        if (state != null && state.nameKnown() && state.visible() == customNameVisible && Objects.equals(state.name(), customName) && now < state.expiry())
+            return;
+
+        states.put(entity.getEntityId(), new NametagState(customName, true, customNameVisible, now + this.resendIntervalNanos));
+        this.nmsHandler.updateEntityNameTagForPlayer(player, entity, customName, customNameVisible);
+    }
+
+    /**
+     * Updates the visibility of the nametag of an entity for a player if it differs from the last one sent
+     *
+     * @param player The player to send the nametag visibility to
+     * @param entity The entity to update the nametag visibility of
+     * @param customNameVisible true if the name should be visible without looking at the entity
+     */
+    public void updateNameTagVisibility(Player player, Entity entity, boolean customNameVisible) {
+        if (this.resendIntervalNanos <= 0) {
+            this.nmsHandler.updateEntityNameTagVisibilityForPlayer(player, entity, customNameVisible);
+            return;
+        }
+
+        Map<Integer, NametagState> states = this.getStates(player);
+        NametagState state = states.get(entity.getEntityId());
+        long now = System.nanoTime();
+        if (state != null && state.visible() == customNameVisible && now < state.expiry())
+            return;
+
+        if (state != null && now < state.expiry()) {
+            states.put(entity.getEntityId(), new NametagState(state.name(), state.nameKnown(), customNameVisible, state.expiry()));
+        } else {
+            states.put(entity.getEntityId(), new NametagState(null, false, customNameVisible, now + this.resendIntervalNanos));
+        }
+        this.nmsHandler.updateEntityNameTagVisibilityForPlayer(player, entity, customNameVisible);
+    }
+
+    /**
+     * Forgets the nametag last sent to a player for an entity, the next update will always be sent
+     *
+     * @param player The player
+     * @param entity The entity
+     */
+    public void forget(Player player, Entity entity) {
+        Map<Integer, NametagState> states = this.sentStates.get(player.getUniqueId());
+        if (states != null)
+            states.remove(entity.getEntityId());
+    }
+
+    /**
+     * Forgets all nametags last sent to a player
+     *
+     * @param player The player
+     */
+    public void forget(Player player) {
+        this.sentStates.remove(player.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        this.forget(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        this.forget(event.getPlayer());
+    }
+
+    private Map<Integer, NametagState> getStates(Player player) {
+        return this.sentStates.computeIfAbsent(player.getUniqueId(), x -> new ConcurrentHashMap<>());
+    }
+
+    private void removeExpired() {
+        long now = System.nanoTime();
+        for (Map<Integer, NametagState> states : this.sentStates.values())
+            states.values().removeIf(x -> now >= x.expiry());
+    }
+
+    private record NametagState(String name, boolean nameKnown, boolean visible, long expiry) { }
+
+}
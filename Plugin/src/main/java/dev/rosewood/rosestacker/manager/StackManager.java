@@ -5,6 +5,7 @@ import dev.rosewood.rosegarden.manager.Manager;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
+import dev.rosewood.rosestacker.stack.StackCounters;
 import dev.rosewood.rosestacker.stack.StackedBlock;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedItem;
@@ -15,12 +16,15 @@ import dev.rosewood.rosestacker.stack.settings.BlockStackSettings;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import dev.rosewood.rosestacker.utils.DataUtils;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -40,8 +44,10 @@ import org.bukkit.scheduler.BukkitTask;
 public class StackManager extends Manager implements StackingLogic {
 
     private final Map<UUID, StackingThread> stackingThreads;
+    private final StackCounters stackCounters;
 
     private BukkitTask autosaveTask;
+    private volatile ForkJoinPool stackingPool;
 
     private boolean isEntityStackingTemporarilyDisabled;
     private boolean isEntityUnstackingTemporarilyDisabled;
@@ -52,6 +58,7 @@ public class StackManager extends Manager implements StackingLogic {
         super(rosePlugin);
 
         this.stackingThreads = new ConcurrentHashMap<>();
+        this.stackCounters = new StackCounters();
 
         this.isEntityStackingTemporarilyDisabled = false;
     }
@@ -60,6 +67,19 @@ public class StackManager extends Manager implements StackingLogic {
     public void reload() {
         this.entityDataStorageType = StackedEntityDataStorageType.fromName(Setting.ENTITY_DATA_STORAGE_TYPE.getString());
 
+        // Create the pool used to stack the regions of a world in parallel
+        if (Setting.PERFORMANCE_PARALLEL_STACKING_ENABLED.getBoolean()) {
+            int threads = Setting.PERFORMANCE_PARALLEL_STACKING_THREADS.getInt();
+            if (threads <= 0)
+                threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+            this.stackingPool = new ForkJoinPool(threads, pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("RoseStacker Stacking Worker #" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+
         // Load a new StackingThread per world
         Bukkit.getWorlds().forEach(this::loadWorld);
 
@@ -84,6 +104,11 @@ public class StackManager extends Manager implements StackingLogic {
         // Close and clear StackingThreads
         this.stackingThreads.values().forEach(StackingThread::close);
         this.stackingThreads.clear();
+
+        if (this.stackingPool != null) {
+            this.stackingPool.shutdown();
+            this.stackingPool = null;
+        }
     }
 
     @Override
@@ -410,6 +435,61 @@ public class StackManager extends Manager implements StackingLogic {
         return this.stackingThreads;
     }
 
+    /**
+     * Gets the StackedEntities in the given chunks, only visits the stacks in those chunks
+     *
+     * @param chunks The chunks
+     * @return a List of the StackedEntities in the chunks
+     */
+    public List<StackedEntity> getStackedEntities(Collection<Chunk> chunks) {
+        List<StackedEntity> stackedEntities = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            StackingThread stackingThread = this.getStackingThread(chunk.getWorld());
+            if (stackingThread != null)
+                stackedEntities.addAll(stackingThread.getStackedEntities(chunk.getX(), chunk.getZ()));
+        }
+        return stackedEntities;
+    }
+
+    /**
+     * Gets the StackedItems in the given chunks, only visits the stacks in those chunks
+     *
+     * @param chunks The chunks
+     * @return a List of the StackedItems in the chunks
+     */
+    public List<StackedItem> getStackedItems(Collection<Chunk> chunks) {
+        List<StackedItem> stackedItems = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            StackingThread stackingThread = this.getStackingThread(chunk.getWorld());
+            if (stackingThread != null)
+                stackedItems.addAll(stackingThread.getStackedItems(chunk.getX(), chunk.getZ()));
+        }
+        return stackedItems;
+    }
+
+    /**
+     * @return the live counts of the stacks in all loaded worlds
+     */
+    public StackCounters getStackCounters() {
+        return this.stackCounters;
+    }
+
+    /**
+     * @param world The World
+     * @return the live counts of the stacks in a World, or null if the World isn't loaded
+     */
+    public StackCounters getStackCounters(World world) {
+        StackingThread stackingThread = this.getStackingThread(world);
+        return stackingThread == null ? null : stackingThread.getStackCounters();
+    }
+
+    /**
+     * @return the pool used to stack the regions of a world in parallel, or null if parallel stacking is disabled
+     */
+    public ForkJoinPool getStackingPool() {
+        return this.stackingPool;
+    }
+
     /**
      * Creates a StackingThread for the given World
      *
@@ -481,6 +561,18 @@ public class StackManager extends Manager implements StackingLogic {
         return Setting.DISABLED_WORLDS.getStringList().stream().anyMatch(x -> x.equalsIgnoreCase(world.getName()));
     }
 
+    /**
+     * Queues an entity or item to be stacked by the stacking thread of a world if it isn't stacked by the next stacking pass
+     *
+     * @param entityUUID The UUID of the entity or item
+     * @param world The world the entity or item is in
+     */
+    public void queueRegistration(UUID entityUUID, World world) {
+        StackingThread stackingThread = this.getStackingThread(world);
+        if (stackingThread != null)
+            stackingThread.queueRegistration(entityUUID);
+    }
+
     public void changeStackingThread(UUID entityUUID, StackedEntity stackedEntity, World from, World to) {
         StackingThread fromThread = this.getStackingThread(from);
         StackingThread toThread = this.getStackingThread(to);
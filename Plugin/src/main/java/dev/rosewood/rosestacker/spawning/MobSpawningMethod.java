@@ -21,13 +21,11 @@ import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -35,7 +33,6 @@ import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.CreatureSpawnEvent;
@@ -141,14 +138,12 @@ public class MobSpawningMethod implements SpawningMethod {
             }
 
             EntityType entityType = stackedSpawner.getSpawnerTile().getSpawnerType().getOrThrow();
-            Predicate<Entity> predicate = entity -> entity.getType() == entityType;
-            Collection<Entity> nearbyEntities = entityCacheManager.getNearbyEntities(stackedSpawner.getLocation(), stackSettings.getSpawnRange(), predicate);
             List<StackedEntity> nearbyStackedEntities = new ArrayList<>();
-            for (Entity entity : nearbyEntities) {
+            entityCacheManager.forEachNearbyEntity(stackedSpawner.getLocation(), stackSettings.getSpawnRange(), entityType, entity -> {
                 StackedEntity stackedEntity = stackManager.getStackedEntity((LivingEntity) entity);
                 if (stackedEntity != null)
                     nearbyStackedEntities.add(stackedEntity);
-            }
+            });
 
             int successfulSpawns;
             if (!onlyCheckConditions) {
@@ -0,0 +1,145 @@
+package dev.rosewood.rosestacker.stack;
+
+import dev.rosewood.rosestacker.utils.LongObjectMap;
+import dev.rosewood.rosestacker.utils.StackerUtils;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+
+/**
+ * A secondary index of entity or item stacks by the chunk they are in, so chunk scoped lookups only visit the stacks
+ * in those chunks. Positions are refreshed while each tick's {@link EntitySnapshot} is captured, so a stack that just
+ * crossed a chunk border may be listed under its previous chunk until the next tick.
+ * The chunk a stack is filed under is stored on the stack itself, so checking an unmoved stack doesn't take the lock.
+ *
+ * @param <T> The type of stack
+ */
+final class ChunkStackIndex<T extends Stack<?>> {
+
+    /**
+     * Marks a stack that isn't in an index, can't collide with a real chunk key since chunk coordinates never get
+     * anywhere near {@link Integer#MIN_VALUE}
+     */
+    static final long NOT_INDEXED = Long.MIN_VALUE;
+
+    private final Function<T, Entity> entityGetter;
+    private final ObjLongConsumer<Entity> moveListener;
+    private final LongObjectMap<Set<T>> stacksByChunk;
+
+    /**
+     * @param entityGetter Gets the entity of a stack, may return null
+     * @param moveListener Called with the entity and its new chunk key when {@link #update(Stack, double, double)}
+     *                     finds a stack that crossed a chunk border
+     */
+    ChunkStackIndex(Function<T, Entity> entityGetter, ObjLongConsumer<Entity> moveListener) {
+        this.entityGetter = entityGetter;
+        this.moveListener = moveListener;
+        this.stacksByChunk = new LongObjectMap<>();
+    }
+
+    /**
+     * Adds a stack to the index at the current location of its entity, or moves it if it was already indexed
+     *
+     * @param stack The stack
+     */
+    synchronized void add(T stack) {
+        Entity entity = this.entityGetter.apply(stack);
+        if (entity == null)
+            return;
+
+        Location location = entity.getLocation();
+        this.move(stack, StackerUtils.getChunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+    }
+
+    /**
+     * Removes a stack from the index
+     *
+     * @param stack The stack
+     */
+    synchronized void remove(T stack) {
+        long chunkKey = stack.indexedChunkKey;
+        if (chunkKey == NOT_INDEXED)
+            return;
+
+        stack.indexedChunkKey = NOT_INDEXED;
+        this.removeFromChunk(stack, chunkKey);
+    }
+
+    /**
+     * Moves an indexed stack to a new chunk if its position is outside of the chunk it's filed under,
+     * stacks that aren't indexed are left alone
+     *
+     * @param stack The stack
+     * @param x The current x position of the stack
+     * @param z The current z position of the stack
+     */
+    void update(T stack, double x, double z) {
+        long indexedChunkKey = stack.indexedChunkKey;
+        if (indexedChunkKey == NOT_INDEXED)
+            return;
+
+        long chunkKey = StackerUtils.getChunkKey(Location.locToBlock(x) >> 4, Location.locToBlock(z) >> 4);
+        if (chunkKey == indexedChunkKey)
+            return;
+
+        synchronized (this) {
+            // It may have been removed since it was read above
+            if (stack.indexedChunkKey == NOT_INDEXED)
+                return;
+            this.move(stack, chunkKey);
+        }
+
+        Entity entity = this.entityGetter.apply(stack);
+        if (entity != null)
+            this.moveListener.accept(entity, chunkKey);
+    }
+
+    /**
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return a copy of the stacks indexed in the chunk
+     */
+    synchronized List<T> get(int chunkX, int chunkZ) {
+        Set<T> stacks = this.stacksByChunk.get(StackerUtils.getChunkKey(chunkX, chunkZ));
+        return stacks == null ? List.of() : new ArrayList<>(stacks);
+    }
+
+    /**
+     * Runs an action for each stack indexed in a chunk. The index stays locked while the action runs, so the action
+     * must be quick and must not modify the index.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @param action The action to run for each stack
+     */
+    synchronized void forEach(int chunkX, int chunkZ, Consumer<T> action) {
+        Set<T> stacks = this.stacksByChunk.get(StackerUtils.getChunkKey(chunkX, chunkZ));
+        if (stacks != null)
+            stacks.forEach(action);
+    }
+
+    private void move(T stack, long chunkKey) {
+        long previousChunkKey = stack.indexedChunkKey;
+        if (previousChunkKey == chunkKey)
+            return;
+
+        if (previousChunkKey != NOT_INDEXED)
+            this.removeFromChunk(stack, previousChunkKey);
+
+        stack.indexedChunkKey = chunkKey;
+        this.stacksByChunk.computeIfAbsent(chunkKey, x -> new HashSet<>()).add(stack);
+    }
+
+    private void removeFromChunk(T stack, long chunkKey) {
+        Set<T> stacks = this.stacksByChunk.get(chunkKey);
+        if (stacks != null && stacks.remove(stack) && stacks.isEmpty())
+            this.stacksByChunk.remove(chunkKey);
+    }
+
+}
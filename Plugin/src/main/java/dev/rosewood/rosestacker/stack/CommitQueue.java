@@ -0,0 +1,122 @@
+package dev.rosewood.rosestacker.stack;
+
+import dev.rosewood.rosegarden.RosePlugin;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import org.bukkit.Bukkit;
+
+/**
+ * Queues changes made by the async stacking passes of a world to be applied on the main thread.
+ * A single task drains the queue once per tick in the order changes were submitted, rather than
+ * scheduling a separate task for every entity removal, spawn, or split.
+ */
+public class CommitQueue {
+
+    private final RosePlugin rosePlugin;
+    private final Queue<Runnable> queue;
+    private final AtomicInteger depth;
+    private final long budgetNanos;
+
+    private volatile int peakDepth, lastDrained;
+    private volatile long totalDrained;
+
+    public CommitQueue(RosePlugin rosePlugin, long budgetMillis) {
+        this.rosePlugin = rosePlugin;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.depth = new AtomicInteger();
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Runs a change immediately if called from the main thread, otherwise queues it for the next drain
+     *
+     * @param change The change to apply
+     */
+    public void commit(Runnable change) {
+        if (Bukkit.isPrimaryThread()) {
+            change.run();
+        } else {
+            this.submit(change);
+        }
+    }
+
+    /**
+     * Queues a change to be applied during the next drain, even if called from the main thread
+     *
+     * @param change The change to apply
+     */
+    public void submit(Runnable change) {
+        this.queue.add(change);
+        int depth = this.depth.incrementAndGet();
+        if (depth > this.peakDepth)
+            this.peakDepth = depth;
+    }
+
+    /**
+     * Applies queued changes in order until the queue is empty or the per-tick budget runs out, must be called on the main thread
+     */
+    void drain() {
+        this.drain(this.budgetNanos);
+    }
+
+    /**
+     * Applies every queued change regardless of the per-tick budget, must be called on the main thread
+     */
+    void drainAll() {
+        this.drain(-1);
+    }
+
+    private void drain(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int drained = 0;
+        Runnable change;
+        while ((change = this.queue.poll()) != null) {
+            this.depth.decrementAndGet();
+            drained++;
+
+            try {
+                change.run();
+            } catch (Exception e) {
+                this.rosePlugin.getLogger().log(Level.WARNING, "Failed to apply a queued stacking change", e);
+            }
+
+            if (budgetNanos > 0 && System.nanoTime() >= deadline)
+                break;
+        }
+
+        this.lastDrained = drained;
+        this.totalDrained += drained;
+    }
+
+    /**
+     * @return the number of changes currently waiting to be applied
+     */
+    public int getDepth() {
+        return this.depth.get();
+    }
+
+    /**
+     * @return the highest number of changes that have been waiting to be applied at once
+     */
+    public int getPeakDepth() {
+        return this.peakDepth;
+    }
+
+    /**
+     * @return the number of changes applied during the last drain
+     */
+    public int getLastDrained() {
+        return this.lastDrained;
+    }
+
+    /**
+     * @return the total number of changes applied by this queue
+     */
+    public long getTotalDrained() {
+        return this.totalDrained;
+    }
+
+}
@@ -0,0 +1,298 @@
+package dev.rosewood.rosestacker.stack;
+
+import java.util.Collection;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+/**
+ * An immutable capture of per-entity state for a single world, taken on the main thread once per tick.
+ * Async stacking passes read from this instead of the live entities so they don't race the main thread,
+ * don't allocate a Location for every position check, and see a state consistent to a single tick.
+ * <p>
+ * State is stored in flat primitive arrays indexed by a slot obtained from {@link #indexOf(Entity)}.
+ */
+public final class EntitySnapshot {
+
+    public static final int NOT_FOUND = -1;
+    public static final EntitySnapshot EMPTY = new EntitySnapshot(0);
+
+    private static final byte FLAG_VALID = 1;
+    private static final byte FLAG_ON_GROUND = 1 << 1;
+    private static final byte FLAG_INSIDE_VEHICLE = 1 << 2;
+    private static final byte FLAG_HAS_PASSENGERS = 1 << 3;
+
+    /**
+     * The snapshot bound to the current async pass, see {@link #bind(EntitySnapshot)}
+     */
+    private static final ThreadLocal<EntitySnapshot> BOUND = new ThreadLocal<>();
+
+    private final Entity[] entities;
+    private final double[] x, y, z;
+    private final byte[] flags;
+    private final int[] idTable, slotTable;
+    private final int idMask;
+    private int size;
+
+    private EntitySnapshot(int capacity) {
+        this.entities = new Entity[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.z = new double[capacity];
+        this.flags = new byte[capacity];
+
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        this.idTable = new int[tableSize];
+        this.slotTable = new int[tableSize];
+        this.idMask = tableSize - 1;
+    }
+
+    /**
+     * Captures the state of all stacked entities, stacked items and players in a world, must be called on the main thread.
+     * Entities that are no longer in the given world are captured as invalid.
+     *
+     * @param world The world being captured
+     * @param stackedEntities The stacked entities in the world
+     * @param stackedItems The stacked items in the world
+     * @param players The players in the world
+     * @return a new snapshot
+     */
+    public static EntitySnapshot capture(World world, Collection<StackedEntity> stackedEntities, Collection<StackedItem> stackedItems, Collection<Player> players) {
+        return capture(world, stackedEntities, stackedItems, players, null, null);
+    }
+
+    /**
+     * Captures the state of all stacked entities, stacked items and players in a world, must be called on the main thread.
+     * Stacks that crossed a chunk border are moved in the given chunk indexes while their position is at hand.
+     *
+     * @param world The world being captured
+     * @param stackedEntities The stacked entities in the world
+     * @param stackedItems The stacked items in the world
+     * @param players The players in the world
+     * @param entityChunkIndex The chunk index of the stacked entities, or null
+     * @param itemChunkIndex The chunk index of the stacked items, or null
+     * @return a new snapshot
+     */
+    static EntitySnapshot capture(World world, Collection<StackedEntity> stackedEntities, Collection<StackedItem> stackedItems, Collection<Player> players,
+                                  ChunkStackIndex<StackedEntity> entityChunkIndex, ChunkStackIndex<StackedItem> itemChunkIndex) {
+        // The stack maps can grow while we iterate, anything beyond the initial size is picked up next tick
+        EntitySnapshot snapshot = new EntitySnapshot(stackedEntities.size() + stackedItems.size() + players.size());
+        Location location = new Location(null, 0, 0, 0);
+        for (StackedEntity stackedEntity : stackedEntities) {
+            int slot = snapshot.capture(stackedEntity.getEntity(), world, location);
+            if (entityChunkIndex != null && slot != NOT_FOUND && snapshot.isValid(slot))
+                entityChunkIndex.update(stackedEntity, snapshot.x[slot], snapshot.z[slot]);
+        }
+        for (StackedItem stackedItem : stackedItems) {
+            int slot = snapshot.capture(stackedItem.getItem(), world, location);
+            if (itemChunkIndex != null && slot != NOT_FOUND && snapshot.isValid(slot))
+                itemChunkIndex.update(stackedItem, snapshot.x[slot], snapshot.z[slot]);
+        }
+        for (Player player : players)
+            snapshot.capture(player, world, location);
+        return snapshot;
+    }
+
+    /**
+     * Binds a snapshot to the current thread for the duration of an async pass, so shared code paths such as the stack
+     * conditions read from it instead of the live entity. Must be paired with {@link #unbind()}.
+     *
+     * @param snapshot The snapshot to bind
+     */
+    public static void bind(EntitySnapshot snapshot) {
+        BOUND.set(snapshot);
+    }
+
+    /**
+     * Unbinds the snapshot from the current thread
+     */
+    public static void unbind() {
+        BOUND.remove();
+    }
+
+    /**
+     * @return the snapshot bound to the current thread, or null if reads should go to the live entities
+     */
+    public static EntitySnapshot bound() {
+        return BOUND.get();
+    }
+
+    /**
+     * Checks if an entity is valid, using the bound snapshot if there is one and it contains the entity
+     *
+     * @param entity The entity to check
+     * @return true if the entity is valid
+     */
+    public static boolean isValid(Entity entity) {
+        EntitySnapshot snapshot = BOUND.get();
+        int index = snapshot == null ? NOT_FOUND : snapshot.indexOf(entity);
+        return index == NOT_FOUND ? entity.isValid() : snapshot.isValid(index);
+    }
+
+    /**
+     * Checks if an entity is on the ground, using the bound snapshot if there is one and it contains the entity
+     *
+     * @param entity The entity to check
+     * @return true if the entity is on the ground
+     */
+    public static boolean isOnGround(Entity entity) {
+        EntitySnapshot snapshot = BOUND.get();
+        int index = snapshot == null ? NOT_FOUND : snapshot.indexOf(entity);
+        return index == NOT_FOUND ? entity.isOnGround() : snapshot.isOnGround(index);
+    }
+
+    /**
+     * Checks if an entity is riding or being ridden by another entity, using the bound snapshot if there is one and it contains the entity
+     *
+     * @param entity The entity to check
+     * @return true if the entity is part of a vehicle
+     */
+    public static boolean isPartOfVehicle(Entity entity) {
+        EntitySnapshot snapshot = BOUND.get();
+        int index = snapshot == null ? NOT_FOUND : snapshot.indexOf(entity);
+        if (index == NOT_FOUND)
+            return entity.isInsideVehicle() || !entity.isEmpty();
+        return snapshot.isInsideVehicle(index) || snapshot.hasPassengers(index);
+    }
+
+    /**
+     * Gets the slot of an entity in this snapshot
+     *
+     * @param entity The entity
+     * @return the slot of the entity, or {@link #NOT_FOUND} if the entity was not captured
+     */
+    public int indexOf(Entity entity) {
+        int id = entity.getEntityId() + 1;
+        for (int i = mix(id) & this.idMask; ; i = (i + 1) & this.idMask) {
+            int stored = this.idTable[i];
+            if (stored == 0)
+                return NOT_FOUND;
+            if (stored == id) {
+                int slot = this.slotTable[i];
+                return this.entities[slot] == entity ? slot : NOT_FOUND;
+            }
+        }
+    }
+
+    /**
+     * Checks if an entity was captured and valid in this snapshot
+     *
+     * @param entity The entity
+     * @return true if the entity was valid when captured, false if it was invalid or not captured
+     */
+    public boolean containsValid(Entity entity) {
+        int index = this.indexOf(entity);
+        return index != NOT_FOUND && this.isValid(index);
+    }
+
+    public Entity getEntity(int index) {
+        return this.entities[index];
+    }
+
+    public double getX(int index) {
+        return this.x[index];
+    }
+
+    public double getY(int index) {
+        return this.y[index];
+    }
+
+    public double getZ(int index) {
+        return this.z[index];
+    }
+
+    public boolean isValid(int index) {
+        return (this.flags[index] & FLAG_VALID) != 0;
+    }
+
+    public boolean isOnGround(int index) {
+        return (this.flags[index] & FLAG_ON_GROUND) != 0;
+    }
+
+    public boolean isInsideVehicle(int index) {
+        return (this.flags[index] & FLAG_INSIDE_VEHICLE) != 0;
+    }
+
+    public boolean hasPassengers(int index) {
+        return (this.flags[index] & FLAG_HAS_PASSENGERS) != 0;
+    }
+
+    /**
+     * Gets the squared distance between two captured entities
+     *
+     * @param index1 The slot of the first entity
+     * @param index2 The slot of the second entity
+     * @return the squared distance between the two entities
+     */
+    public double distanceSquared(int index1, int index2) {
+        double dx = this.x[index1] - this.x[index2];
+        double dy = this.y[index1] - this.y[index2];
+        double dz = this.z[index1] - this.z[index2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Creates a new Location at the captured position of an entity
+     *
+     * @param index The slot of the entity
+     * @param world The world of the snapshot
+     * @return a new Location
+     */
+    public Location toLocation(int index, World world) {
+        return new Location(world, this.x[index], this.y[index], this.z[index]);
+    }
+
+    /**
+     * @return the number of entities captured in this snapshot
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private int capture(Entity entity, World world, Location location) {
+        int slot = this.size;
+        if (entity == null || slot >= this.entities.length || !this.insertId(entity.getEntityId(), slot))
+            return NOT_FOUND;
+
+        entity.getLocation(location);
+        this.entities[slot] = entity;
+        this.x[slot] = location.getX();
+        this.y[slot] = location.getY();
+        this.z[slot] = location.getZ();
+
+        byte flags = 0;
+        if (entity.isValid() && location.getWorld() == world)
+            flags |= FLAG_VALID;
+        if (entity.isOnGround())
+            flags |= FLAG_ON_GROUND;
+        if (entity.isInsideVehicle())
+            flags |= FLAG_INSIDE_VEHICLE;
+        if (!entity.isEmpty())
+            flags |= FLAG_HAS_PASSENGERS;
+        this.flags[slot] = flags;
+        this.size++;
+        return slot;
+    }
+
+    private boolean insertId(int entityId, int slot) {
+        int id = entityId + 1;
+        for (int i = mix(id) & this.idMask; ; i = (i + 1) & this.idMask) {
+            int stored = this.idTable[i];
+            if (stored == id)
+                return false;
+
+            if (stored == 0) {
+                this.idTable[i] = id;
+                this.slotTable[i] = slot;
+                return true;
+            }
+        }
+    }
+
+    private static int mix(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
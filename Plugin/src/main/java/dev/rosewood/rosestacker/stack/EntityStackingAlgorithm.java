@@ -0,0 +1,27 @@
+package dev.rosewood.rosestacker.stack;
+
+import java.util.Arrays;
+
+public enum EntityStackingAlgorithm {
+
+    GREEDY("Try to stack each entity into its nearby stacks one at a time, the original behaviour"),
+    CLUSTER("Find groups of compatible nearby stacks once per pass and merge each group at once, faster for dense farms");
+
+    private final String description;
+
+    EntityStackingAlgorithm(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return this.description;
+    }
+
+    public static EntityStackingAlgorithm fromName(String name) {
+        return Arrays.stream(EntityStackingAlgorithm.values())
+                .filter(x -> x.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(EntityStackingAlgorithm.GREEDY);
+    }
+
+}
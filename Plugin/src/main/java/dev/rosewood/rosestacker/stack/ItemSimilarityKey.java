@@ -0,0 +1,56 @@
+package dev.rosewood.rosestacker.stack;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * The parts of an ItemStack that {@link ItemStack#isSimilar(ItemStack)} compares, captured once so items can be
+ * compared and grouped without cloning their ItemStacks. Two keys are equal exactly when their ItemStacks are similar.
+ */
+public final class ItemSimilarityKey {
+
+    private final Material type;
+    private final ItemMeta itemMeta;
+    private final int hash;
+
+    private ItemSimilarityKey(Material type, ItemMeta itemMeta) {
+        this.type = type;
+        this.itemMeta = itemMeta;
+        this.hash = 31 * type.hashCode() + (itemMeta == null ? 0 : itemMeta.hashCode());
+    }
+
+    /**
+     * Creates the similarity key of an ItemStack
+     *
+     * @param itemStack The ItemStack
+     * @return a new similarity key, the ItemStack is not referenced by it
+     */
+    public static ItemSimilarityKey of(ItemStack itemStack) {
+        return new ItemSimilarityKey(itemStack.getType(), itemStack.hasItemMeta() ? itemStack.getItemMeta() : null);
+    }
+
+    public Material getType() {
+        return this.type;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof ItemSimilarityKey other))
+            return false;
+        if (this.hash != other.hash || this.type != other.type)
+            return false;
+        if (this.itemMeta == null || other.itemMeta == null)
+            return this.itemMeta == other.itemMeta;
+        return Bukkit.getItemFactory().equals(this.itemMeta, other.itemMeta);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+}
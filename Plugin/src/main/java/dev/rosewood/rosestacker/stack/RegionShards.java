@@ -0,0 +1,74 @@
+package dev.rosewood.rosestacker.stack;
+
+import dev.rosewood.rosestacker.utils.LongObjectMap;
+import dev.rosewood.rosestacker.utils.StackerUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups the stacks of a world into square regions of chunks so a stacking pass can process regions in parallel.
+ * <p>
+ * Regions are split into four phases by the parity of their region coordinates, and phases are run one after another.
+ * Regions in the same phase are always a full region apart, so as long as a stack can't reach further than half a
+ * region no two regions running at the same time can touch the same stacks. Merges across a region border are always
+ * made by the region in the earlier phase and each region keeps the order its stacks were added in, so the result
+ * doesn't depend on how the regions get scheduled.
+ *
+ * @param <T> The stack type
+ */
+final class RegionShards<T> {
+
+    static final int PHASES = 4;
+
+    private final int regionSize;
+    private final List<LongObjectMap<List<T>>> phases;
+
+    /**
+     * @param regionSize The width of each region in chunks
+     */
+    RegionShards(int regionSize) {
+        this.regionSize = regionSize;
+        this.phases = new ArrayList<>(PHASES);
+        for (int i = 0; i < PHASES; i++)
+            this.phases.add(new LongObjectMap<>());
+    }
+
+    /**
+     * Checks if stacks that reach a given distance can safely be processed in regions of a given size
+     *
+     * @param reach The furthest distance in blocks a stack can merge with another stack from
+     * @param regionSize The width of each region in chunks
+     * @return true if the regions are wide enough
+     */
+    static boolean canShard(double reach, int regionSize) {
+        return reach * 2 < regionSize * 16;
+    }
+
+    /**
+     * Adds a stack to the region containing the given position
+     *
+     * @param stack The stack to add
+     * @param x The x position of the stack
+     * @param z The z position of the stack
+     */
+    void add(T stack, double x, double z) {
+        int regionX = Math.floorDiv((int) Math.floor(x) >> 4, this.regionSize);
+        int regionZ = Math.floorDiv((int) Math.floor(z) >> 4, this.regionSize);
+        int phase = (regionX & 1) | ((regionZ & 1) << 1);
+        this.phases.get(phase).computeIfAbsent(StackerUtils.getChunkKey(regionX, regionZ), key -> new ArrayList<>()).add(stack);
+    }
+
+    /**
+     * Gets the stacks of every region in a phase, regions in the same phase can be processed at the same time
+     *
+     * @param phase The phase, between 0 and {@link #PHASES}
+     * @return a list of the stacks in each region of the phase
+     */
+    List<List<T>> getRegions(int phase) {
+        LongObjectMap<List<T>> regions = this.phases.get(phase);
+        List<List<T>> stacks = new ArrayList<>(regions.size());
+        regions.forEachValue(stacks::add);
+        return stacks;
+    }
+
+}
@@ -6,10 +6,20 @@ import java.util.HashSet;
 import java.util.Set;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 
 public abstract class Stack<T extends StackSettings> {
 
+    private StackCounters counters;
+    private EntityType countedEntityType;
+    private int countedSize;
+
+    /**
+     * The chunk this stack is filed under in its {@link ChunkStackIndex}, only written by the index
+     */
+    volatile long indexedChunkKey = ChunkStackIndex.NOT_INDEXED;
+
     public abstract int getStackSize();
 
     public abstract Location getLocation();
@@ -30,6 +40,52 @@ public abstract class Stack<T extends StackSettings> {
         return world;
     }
 
+    /**
+     * Starts counting this stack towards a set of counters, and stops counting it towards the ones it was counted
+     * towards before
+     *
+     * @param counters The counters to count this stack towards, or null to stop counting it
+     */
+    synchronized void setCounters(StackCounters counters) {
+        if (this.counters == counters) {
+            this.syncCountedSize();
+            return;
+        }
+
+        StackCounters.Type type = StackCounters.typeOf(this);
+        if (this.counters != null)
+            this.counters.adjust(type, this.countedEntityType, -1, -this.countedSize);
+
+        this.counters = counters;
+        if (counters != null) {
+            this.countedEntityType = this.getCountedEntityType();
+            this.countedSize = this.getStackSize();
+            counters.adjust(type, this.countedEntityType, 1, this.countedSize);
+        }
+    }
+
+    /**
+     * Applies a change in the size of this stack to the counters it's counted towards, should be called whenever
+     * the stack size changes
+     */
+    protected final synchronized void syncCountedSize() {
+        if (this.counters == null)
+            return;
+
+        int size = this.getStackSize();
+        if (size != this.countedSize) {
+            this.counters.adjust(StackCounters.typeOf(this), this.countedEntityType, 0, size - this.countedSize);
+            this.countedSize = size;
+        }
+    }
+
+    /**
+     * @return the entity type this stack is counted under, or null if it isn't an entity stack
+     */
+    protected EntityType getCountedEntityType() {
+        return null;
+    }
+
     protected Set<Player> getPlayersInVisibleRange() {
         Set<Player> players = new HashSet<>();
 
@@ -1,51 +1,96 @@
 package dev.rosewood.rosestacker.stack;
 
-import java.util.Map;
+import dev.rosewood.rosestacker.utils.LongObjectMap;
+import java.util.ArrayList;
+import java.util.List;
 import org.bukkit.block.Block;
 
 /**
- * Tracks a Chunk's StackedSpawners and StackedBlocks
+ * Tracks a Chunk's StackedSpawners and StackedBlocks, keyed by their block position within the chunk
  */
 public class StackChunkData {
 
-    private final Map<Block, StackedSpawner> stackedSpawners;
-    private final Map<Block, StackedBlock> stackedBlocks;
+    private final LongObjectMap<StackedSpawner> stackedSpawners;
+    private final LongObjectMap<StackedBlock> stackedBlocks;
+    private final StackCounters stackCounters;
 
-    public StackChunkData(Map<Block, StackedSpawner> stackedSpawners, Map<Block, StackedBlock> stackedBlocks) {
-        this.stackedSpawners = stackedSpawners;
-        this.stackedBlocks = stackedBlocks;
+    /**
+     * @param stackCounters The counters that stacks in this chunk are counted towards
+     */
+    public StackChunkData(StackCounters stackCounters) {
+        this.stackedSpawners = new LongObjectMap<>();
+        this.stackedBlocks = new LongObjectMap<>();
+        this.stackCounters = stackCounters;
     }
 
-    public void addSpawner(StackedSpawner stackedSpawner) {
-        this.stackedSpawners.put(stackedSpawner.getBlock(), stackedSpawner);
+    public synchronized void addSpawner(StackedSpawner stackedSpawner) {
+        this.track(this.stackedSpawners.put(getLocalKey(stackedSpawner.getBlock()), stackedSpawner), stackedSpawner);
     }
 
-    public void addBlock(StackedBlock stackedBlock) {
-        this.stackedBlocks.put(stackedBlock.getBlock(), stackedBlock);
+    public synchronized void addBlock(StackedBlock stackedBlock) {
+        this.track(this.stackedBlocks.put(getLocalKey(stackedBlock.getBlock()), stackedBlock), stackedBlock);
     }
 
-    public void removeSpawner(StackedSpawner stackedSpawner) {
-        this.stackedSpawners.remove(stackedSpawner.getBlock());
+    public synchronized void removeSpawner(StackedSpawner stackedSpawner) {
+        StackedSpawner removed = this.stackedSpawners.remove(getLocalKey(stackedSpawner.getBlock()));
+        if (removed != null)
+            removed.setCounters(null);
     }
 
-    public void removeBlock(StackedBlock stackedBlock) {
-        this.stackedBlocks.remove(stackedBlock.getBlock());
+    public synchronized void removeBlock(StackedBlock stackedBlock) {
+        StackedBlock removed = this.stackedBlocks.remove(getLocalKey(stackedBlock.getBlock()));
+        if (removed != null)
+            removed.setCounters(null);
     }
 
-    public StackedSpawner getSpawner(Block block) {
-        return this.stackedSpawners.get(block);
+    /**
+     * Stops counting every stack in this chunk, called once the chunk's data is discarded
+     */
+    public synchronized void release() {
+        this.stackedSpawners.forEachValue(x -> x.setCounters(null));
+        this.stackedBlocks.forEachValue(x -> x.setCounters(null));
     }
 
-    public StackedBlock getBlock(Block block) {
-        return this.stackedBlocks.get(block);
+    public synchronized StackedSpawner getSpawner(Block block) {
+        return this.stackedSpawners.get(getLocalKey(block));
     }
 
-    public Map<Block, StackedSpawner> getSpawners() {
-        return this.stackedSpawners;
+    public synchronized StackedBlock getBlock(Block block) {
+        return this.stackedBlocks.get(getLocalKey(block));
     }
 
-    public Map<Block, StackedBlock> getBlocks() {
-        return this.stackedBlocks;
+    /**
+     * @return a copy of the StackedSpawners in this chunk
+     */
+    public synchronized List<StackedSpawner> getSpawners() {
+        List<StackedSpawner> stackedSpawners = new ArrayList<>(this.stackedSpawners.size());
+        this.stackedSpawners.forEachValue(stackedSpawners::add);
+        return stackedSpawners;
+    }
+
+    /**
+     * @return a copy of the StackedBlocks in this chunk
+     */
+    public synchronized List<StackedBlock> getBlocks() {
+        List<StackedBlock> stackedBlocks = new ArrayList<>(this.stackedBlocks.size());
+        this.stackedBlocks.forEachValue(stackedBlocks::add);
+        return stackedBlocks;
+    }
+
+    private void track(Stack<?> previous, Stack<?> stack) {
+        if (previous != null && previous != stack)
+            previous.setCounters(null);
+        stack.setCounters(this.stackCounters);
+    }
+
+    /**
+     * Packs the position of a block within its chunk into a single long
+     *
+     * @param block The block
+     * @return the packed local x/y/z of the block
+     */
+    private static long getLocalKey(Block block) {
+        return ((long) block.getY() << 8) | ((block.getZ() & 0xF) << 4) | (block.getX() & 0xF);
     }
 
 }
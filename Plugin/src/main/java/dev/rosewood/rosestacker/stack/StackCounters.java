@@ -0,0 +1,152 @@
+package dev.rosewood.rosestacker.stack;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.bukkit.entity.EntityType;
+
+/**
+ * Live counts of the stacks being tracked and the total amount stacked in them, by stack type and by entity type for
+ * entity stacks. Stacks add themselves when they start being tracked, report their size changes and remove themselves
+ * when they stop being tracked, so reading a count never has to look at the stacks.
+ * Counters can have a parent, every change is also applied to the parent, which is how the global counts are kept.
+ */
+public final class StackCounters {
+
+    public enum Type {
+        ENTITY,
+        ITEM,
+        BLOCK,
+        SPAWNER
+    }
+
+    private final StackCounters parent;
+    private final Counter[] typeCounters;
+    private final Map<EntityType, Counter> entityTypeCounters;
+
+    public StackCounters(StackCounters parent) {
+        this.parent = parent;
+        this.typeCounters = new Counter[Type.values().length];
+        for (int i = 0; i < this.typeCounters.length; i++)
+            this.typeCounters[i] = new Counter();
+        this.entityTypeCounters = new ConcurrentHashMap<>();
+    }
+
+    public StackCounters() {
+        this(null);
+    }
+
+    /**
+     * @param type The type of stack
+     * @return the number of stacks of the given type
+     */
+    public long getStackCount(Type type) {
+        return this.typeCounters[type.ordinal()].stacks.sum();
+    }
+
+    /**
+     * @param type The type of stack
+     * @return the total amount stacked in stacks of the given type
+     */
+    public long getStackedAmount(Type type) {
+        return this.typeCounters[type.ordinal()].amount.sum();
+    }
+
+    /**
+     * @param entityType The type of entity
+     * @return the number of entity stacks of the given entity type
+     */
+    public long getStackCount(EntityType entityType) {
+        Counter counter = this.entityTypeCounters.get(entityType);
+        return counter == null ? 0 : counter.stacks.sum();
+    }
+
+    /**
+     * @param entityType The type of entity
+     * @return the total amount of entities stacked in entity stacks of the given entity type
+     */
+    public long getStackedAmount(EntityType entityType) {
+        Counter counter = this.entityTypeCounters.get(entityType);
+        return counter == null ? 0 : counter.amount.sum();
+    }
+
+    /**
+     * @return the entity types that have been counted, some may have no stacks left
+     */
+    public Set<EntityType> getCountedEntityTypes() {
+        return Collections.unmodifiableSet(this.entityTypeCounters.keySet());
+    }
+
+    /**
+     * Applies a change to these counters and their parents
+     *
+     * @param type The type of stack
+     * @param entityType The entity type for entity stacks, otherwise null
+     * @param stacks The change in the number of stacks
+     * @param amount The change in the amount stacked
+     */
+    void adjust(Type type, EntityType entityType, int stacks, long amount) {
+        this.typeCounters[type.ordinal()].add(stacks, amount);
+        if (this.parent != null)
+            this.parent.adjust(type, null, stacks, amount);
+
+        if (entityType != null)
+            this.adjustEntityType(entityType, stacks, amount);
+    }
+
+    /**
+     * Removes everything counted here from the parent counters, used when these counters are discarded while stacks
+     * are still counted towards them. These counters are left as they were.
+     */
+    void detach() {
+        if (this.parent == null)
+            return;
+
+        for (Type type : Type.values()) {
+            Counter counter = this.typeCounters[type.ordinal()];
+            this.parent.adjust(type, null, (int) -counter.stacks.sum(), -counter.amount.sum());
+        }
+
+        for (Map.Entry<EntityType, Counter> entry : this.entityTypeCounters.entrySet())
+            this.parent.adjustEntityType(entry.getKey(), (int) -entry.getValue().stacks.sum(), -entry.getValue().amount.sum());
+    }
+
+    private void adjustEntityType(EntityType entityType, int stacks, long amount) {
+        this.entityTypeCounters.computeIfAbsent(entityType, x -> new Counter()).add(stacks, amount);
+        if (this.parent != null)
+            this.parent.adjustEntityType(entityType, stacks, amount);
+    }
+
+    /**
+     * @param stack The stack
+     * @return the type of the stack
+     */
+    static Type typeOf(Stack<?> stack) {
+        if (stack instanceof StackedEntity)
+            return Type.ENTITY;
+        if (stack instanceof StackedItem)
+            return Type.ITEM;
+        if (stack instanceof StackedBlock)
+            return Type.BLOCK;
+        if (stack instanceof StackedSpawner)
+            return Type.SPAWNER;
+        throw new IllegalArgumentException("Unknown stack type: " + stack.getClass().getName());
+    }
+
+    private static final class Counter {
+
+        private final LongAdder stacks = new LongAdder();
+        private final LongAdder amount = new LongAdder();
+
+        private void add(int stacks, long amount) {
+            if (stacks != 0)
+                this.stacks.add(stacks);
+            if (amount != 0)
+                this.amount.add(amount);
+        }
+
+    }
+
+}
@@ -1,6 +1,5 @@
 package dev.rosewood.rosestacker.stack;
 
-import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.event.StackGUIOpenEvent;
 import dev.rosewood.rosestacker.gui.StackedBlockGui;
@@ -54,12 +53,14 @@ public class StackedBlock extends Stack<BlockStackSettings> {
 
     public void increaseStackSize(int amount) {
         this.size += amount;
+        this.syncCountedSize();
 
         this.updateDisplay();
     }
 
     public void setStackSize(int size) {
         this.size = size;
+        this.syncCountedSize();
 
         this.updateDisplay();
     }
@@ -92,17 +93,21 @@ public class StackedBlock extends Stack<BlockStackSettings> {
 
         HologramManager hologramManager = RoseStacker.getInstance().getManager(HologramManager.class);
 
-        Location location = this.getHologramLocation();
-
         if (this.size <= 1) {
-            hologramManager.deleteHologram(location);
+            hologramManager.deleteHologram(this.block);
             return;
         }
 
-        List<String> displayStrings = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessages("block-hologram-display", StringPlaceholders.builder("amount", StackerUtils.formatNumber(this.getStackSize()))
-                .add("name", this.stackSettings.getDisplayName()).build());
+        String amount = StackerUtils.formatNumber(this.getStackSize());
+        List<String> displayStrings = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleTemplates("block-hologram-display").stream()
+                .map(x -> x.render(placeholder -> switch (placeholder) {
+                    case "amount" -> amount;
+                    case "name" -> this.stackSettings.getDisplayName();
+                    default -> null;
+                }))
+                .toList();
 
-        hologramManager.createOrUpdateHologram(location, displayStrings);
+        hologramManager.createOrUpdateHologram(this.block, Setting.BLOCK_DISPLAY_TAGS_HEIGHT_OFFSET.getDouble(), displayStrings);
     }
 
     public Location getHologramLocation() {
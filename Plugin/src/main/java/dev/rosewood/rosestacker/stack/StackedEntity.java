@@ -2,7 +2,6 @@ package dev.rosewood.rosestacker.stack;
 
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
-import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.api.RoseStackerAPI;
 import dev.rosewood.rosestacker.event.AsyncEntityDeathEvent;
@@ -10,6 +9,7 @@ import dev.rosewood.rosestacker.event.EntityStackMultipleDeathEvent;
 import dev.rosewood.rosestacker.hook.NPCsHook;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.manager.NametagManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
@@ -17,6 +17,7 @@ import dev.rosewood.rosestacker.nms.NMSHandler;
 import dev.rosewood.rosestacker.nms.storage.EntityDataEntry;
 import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorage;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
+import dev.rosewood.rosestacker.stack.settings.conditions.entity.StackSignature;
 import dev.rosewood.rosestacker.utils.DataUtils;
 import dev.rosewood.rosestacker.utils.EntityUtils;
 import dev.rosewood.rosestacker.utils.ItemUtils;
@@ -26,6 +27,7 @@ import dev.rosewood.rosestacker.utils.ThreadUtils;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -58,6 +60,10 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
     private EntityStackSettings stackSettings;
 
+    private final AtomicInteger version;
+    private volatile UnstackCheck unstackCheck;
+    private volatile CachedSignature signature;
+
     public StackedEntity(LivingEntity entity, StackedEntityDataStorage stackedEntityDataStorage) {
         this.entity = entity;
         this.stackedEntityDataStorage = stackedEntityDataStorage;
@@ -66,6 +72,8 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         this.displayName = null;
         this.displayNameVisible = false;
 
+        this.version = new AtomicInteger();
+
         if (this.entity != null) {
             this.stackSettings = RoseStacker.getInstance().getManager(StackSettingManager.class).getEntityStackSettings(this.entity);
             this.updateDisplay();
@@ -99,6 +107,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
         this.entity = entity;
         this.stackedEntityDataStorage.updateEntity(entity);
+        this.incrementVersion();
         this.updateDisplay();
     }
 
@@ -109,6 +118,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
     public void increaseStackSize(LivingEntity entity, boolean updateDisplay) {
         Runnable task = () -> {
             this.stackedEntityDataStorage.add(entity);
+            this.incrementVersion();
             if (updateDisplay)
                 this.updateDisplay();
         };
@@ -130,6 +140,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
      */
     public void increaseStackSize(int amount, boolean updateDisplay) {
         this.stackedEntityDataStorage.addClones(amount);
+        this.incrementVersion();
 
         if (updateDisplay)
             this.updateDisplay();
@@ -137,6 +148,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
     public void increaseStackSize(StackedEntityDataStorage serializedStackedEntities) {
         this.stackedEntityDataStorage.addAll(serializedStackedEntities);
+        this.incrementVersion();
         this.updateDisplay();
     }
 
@@ -168,6 +180,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         }
 
         this.stackedEntityDataStorage.updateEntity(this.entity);
+        this.incrementVersion();
         this.updateDisplay();
         PersistentDataUtils.applyDisabledAi(this.entity);
 
@@ -210,6 +223,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
     public void setDataStorage(StackedEntityDataStorage stackedEntityDataStorage) {
         stackedEntityDataStorage.updateEntity(this.entity);
         this.stackedEntityDataStorage = stackedEntityDataStorage;
+        this.incrementVersion();
         this.updateDisplay();
     }
 
@@ -368,6 +382,44 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
     }
 
     /**
+     * Marks the main entity or the front of the data storage as changed, so cached checks such as
+     * {@link #shouldStayStacked()} are evaluated again. Changes made through this class are tracked automatically.
+     */
+    public void incrementVersion() {
+        this.version.incrementAndGet();
+        this.syncCountedSize();
+    }
+
+    /**
+     * @return a counter that changes whenever the main entity or the front of the data storage may have changed
+     */
+    public int getVersion() {
+        return this.version.get();
+    }
+
+    /**
+     * Gets the signature of the main entity, used to quickly tell if two stacks can never stack together.
+     * The signature is cached until the stack's version changes or the signature cache duration runs out.
+     *
+     * @return the signature of the main entity
+     */
+    public StackSignature getSignature() {
+        int version = this.version.get();
+        long now = System.currentTimeMillis();
+        CachedSignature signature = this.signature;
+        if (signature != null && signature.version() == version && now < signature.expiry())
+            return signature.signature();
+
+        StackSignature created = this.stackSettings.createSignature(this.entity);
+        this.signature = new CachedSignature(version, now + this.stackSettings.getSignatureCacheDuration() * 50, created);
+        return created;
+    }
+
+    /**
+     * Checks if the main entity can still stack with the next entity in the stack.
+     * The result is cached until the stack's version changes or the cache duration runs out,
+     * since checking requires creating the next entity from its stored data.
+     *
      * @return true if this entity should stay stacked, otherwise false
      */
     public boolean shouldStayStacked() {
@@ -379,10 +431,22 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         if (this.entity instanceof EnderDragon)
             return true;
 
+        // Read the version before checking, so a change made while checking is never hidden by the cached result
+        int version = this.version.get();
+        long now = System.currentTimeMillis();
+        UnstackCheck unstackCheck = this.unstackCheck;
+        if (unstackCheck != null && unstackCheck.version() == version && now < unstackCheck.expiry())
+            return unstackCheck.result();
+
         NMSHandler nmsHandler = NMSAdapter.getHandler();
         LivingEntity entity = this.stackedEntityDataStorage.peek().createEntity(this.entity.getLocation(), false, this.entity.getType());
         StackedEntity stackedEntity = new StackedEntity(entity, nmsHandler.createEntityDataStorage(entity, RoseStacker.getInstance().getManager(StackManager.class).getEntityDataStorageType(entity.getType())));
-        return this.stackSettings.testCanStackWith(this, stackedEntity, true);
+        boolean result = this.stackSettings.testCanStackWith(this, stackedEntity, true);
+
+        long cacheDuration = Setting.PERFORMANCE_UNSTACK_CHECK_CACHE_DURATION.getLong();
+        if (cacheDuration > 0)
+            this.unstackCheck = new UnstackCheck(version, now + cacheDuration * 50, result);
+        return result;
     }
 
     @Override
@@ -412,12 +476,11 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         String customName = this.entity.getCustomName();
         if (this.getStackSize() > 1 || Setting.ENTITY_DISPLAY_TAGS_SINGLE.getBoolean()) {
             String displayString;
+            LocaleManager localeManager = RoseStacker.getInstance().getManager(LocaleManager.class);
             if (customName != null && Setting.ENTITY_DISPLAY_TAGS_CUSTOM_NAME.getBoolean()) {
-                displayString = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessage("entity-stack-display-custom-name", StringPlaceholders.builder("amount", StackerUtils.formatNumber(this.getStackSize()))
-                        .add("name", customName).build());
+                displayString = localeManager.renderStackDisplayMessage("entity-stack-display-custom-name", customName, this.getStackSize());
             } else {
-                displayString = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessage("entity-stack-display", StringPlaceholders.builder("amount", StackerUtils.formatNumber(this.getStackSize()))
-                        .add("name", this.stackSettings.getDisplayName()).build());
+                displayString = localeManager.getStackDisplayMessage("entity-stack-display", this.stackSettings.getDisplayName(), this.getStackSize());
             }
 
             this.displayNameVisible = !Setting.ENTITY_DISPLAY_TAGS_HOVER.getBoolean();
@@ -437,11 +500,12 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
 
     @Override
     public void updateDisplay() {
+        this.syncCountedSize();
         this.displayName = null;
         String displayName = this.getDisplayName();
-        NMSHandler nmsHandler = NMSAdapter.getHandler();
+        NametagManager nametagManager = RoseStacker.getInstance().getManager(NametagManager.class);
         for (Player player : this.getPlayersInVisibleRange())
-            nmsHandler.updateEntityNameTagForPlayer(player, this.entity, displayName, this.displayNameVisible);
+            nametagManager.updateNameTag(player, this.entity, displayName, this.displayNameVisible);
     }
 
     @Override
@@ -449,6 +513,11 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         return this.stackSettings;
     }
 
+    @Override
+    protected EntityType getCountedEntityType() {
+        return this.entity == null ? null : this.entity.getType();
+    }
+
     /**
      * Gets the StackedEntity that two stacks should stack into
      *
@@ -552,6 +621,7 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
         }
 
         List<EntityDataEntry> removed = this.stackedEntityDataStorage.pop(amount - 1);
+        this.incrementVersion();
         List<LivingEntity> entities = new ArrayList<>(removed.size());
         for (EntityDataEntry entry : removed)
             entities.add(entry.createEntity(this.entity.getLocation(), false, this.entity.getType()));
@@ -585,4 +655,8 @@ public class StackedEntity extends Stack<EntityStackSettings> implements Compara
             killer.incrementStatistic(Statistic.KILL_ENTITY, this.entity.getType(), this.getStackSize() - 1);
     }
 
+    private record UnstackCheck(int version, long expiry, boolean result) { }
+
+    private record CachedSignature(int version, long expiry, StackSignature signature) { }
+
 }
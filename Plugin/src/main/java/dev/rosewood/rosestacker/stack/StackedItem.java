@@ -1,12 +1,10 @@
 package dev.rosewood.rosestacker.stack;
 
-import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.LocaleManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.stack.settings.ItemStackSettings;
-import dev.rosewood.rosestacker.utils.StackerUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
@@ -22,6 +20,7 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
     private Item item;
 
     private ItemStackSettings stackSettings;
+    private volatile ItemSimilarityKey similarityKey;
 
     public StackedItem(int size, Item item) {
         this.size = size;
@@ -29,6 +28,7 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
 
         if (this.item != null) {
             this.stackSettings = RoseStacker.getInstance().getManager(StackSettingManager.class).getItemStackSettings(this.item);
+            this.similarityKey = ItemSimilarityKey.of(this.item.getItemStack());
 
             if (Bukkit.isPrimaryThread())
                 this.updateDisplay();
@@ -48,14 +48,34 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
         this.updateDisplay();
     }
 
+    /**
+     * Gets the cached similarity key of this stack's item, two stacks can only stack together if their keys are equal.
+     * The key is updated whenever the display of this stack is updated, so it may be out of date if the item was
+     * changed by something else. Items are compared again before they are merged.
+     *
+     * @return the similarity key of this stack's item
+     */
+    public ItemSimilarityKey getSimilarityKey() {
+        return this.similarityKey;
+    }
+
+    /**
+     * Recreates the similarity key from the live item, used when the item was changed without this stack knowing
+     */
+    void refreshSimilarityKey() {
+        this.similarityKey = ItemSimilarityKey.of(this.item.getItemStack());
+    }
+
     public void increaseStackSize(int amount, boolean updateDisplay) {
         this.size += amount;
+        this.syncCountedSize();
         if (updateDisplay)
             this.updateDisplay();
     }
 
     public void setStackSize(int size) {
         this.size = size;
+        this.syncCountedSize();
         this.updateDisplay();
     }
 
@@ -73,6 +93,7 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
     public void updateDisplay() {
         ItemStack itemStack = this.item.getItemStack();
         itemStack.setAmount(Math.min(this.size, itemStack.getMaxStackSize()));
+        this.similarityKey = ItemSimilarityKey.of(itemStack);
 
         if (itemStack.getType() == Material.AIR)
             return;
@@ -98,12 +119,14 @@ public class StackedItem extends Stack<ItemStackSettings> implements Comparable<
             displayName = this.stackSettings.getDisplayName();
         }
 
+        // Custom names aren't cached since there's no limit to how many different ones there can be
+        LocaleManager localeManager = RoseStacker.getInstance().getManager(LocaleManager.class);
+        String messageKey = this.getStackSize() > 1 ? "item-stack-display" : "item-stack-display-single";
         String displayString;
-        if (this.getStackSize() > 1) {
-            displayString = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessage("item-stack-display", StringPlaceholders.builder("amount", StackerUtils.formatNumber(this.getStackSize()))
-                    .add("name", displayName).build());
+        if (hasCustomName && Setting.ITEM_DISPLAY_CUSTOM_NAMES.getBoolean()) {
+            displayString = localeManager.renderStackDisplayMessage(messageKey, displayName, this.getStackSize());
         } else {
-            displayString = RoseStacker.getInstance().getManager(LocaleManager.class).getLocaleMessage("item-stack-display-single", StringPlaceholders.of("name", displayName));
+            displayString = localeManager.getStackDisplayMessage(messageKey, displayName, this.getStackSize());
         }
 
         this.item.setCustomNameVisible((this.size > 1 || Setting.ITEM_DISPLAY_TAGS_SINGLE.getBoolean() || (Setting.ITEM_DISPLAY_CUSTOM_NAMES_ALWAYS.getBoolean() && hasCustomName)) &&
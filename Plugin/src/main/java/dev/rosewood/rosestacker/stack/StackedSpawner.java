@@ -1,12 +1,12 @@
 package dev.rosewood.rosestacker.stack;
 
-import dev.rosewood.rosegarden.utils.StringPlaceholders;
 import dev.rosewood.rosestacker.RoseStacker;
 import dev.rosewood.rosestacker.event.StackGUIOpenEvent;
 import dev.rosewood.rosestacker.gui.StackedSpawnerGui;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.HologramManager;
 import dev.rosewood.rosestacker.manager.LocaleManager;
+import dev.rosewood.rosestacker.manager.LocaleManager.LocaleTemplate;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.spawner.SpawnerType;
@@ -101,12 +101,14 @@ public class StackedSpawner extends Stack<SpawnerStackSettings> {
 
     public void increaseStackSize(int amount) {
         this.size += amount;
+        this.syncCountedSize();
         this.updateSpawnerProperties(false);
         this.updateDisplay();
     }
 
     public void setStackSize(int size) {
         this.size = size;
+        this.syncCountedSize();
         this.updateSpawnerProperties(false);
         this.updateDisplay();
     }
@@ -144,33 +146,54 @@ public class StackedSpawner extends Stack<SpawnerStackSettings> {
         HologramManager hologramManager = RoseStacker.getInstance().getManager(HologramManager.class);
         LocaleManager localeManager = RoseStacker.getInstance().getManager(LocaleManager.class);
 
-        Location location = this.getHologramLocation();
-
         int sizeForHologram = Setting.SPAWNER_DISPLAY_TAGS_SINGLE.getBoolean() ? 0 : 1;
         if (this.size <= sizeForHologram) {
-            hologramManager.deleteHologram(location);
+            hologramManager.deleteHologram(this.block);
             return;
         }
 
-        List<String> displayStrings;
+        List<LocaleTemplate> templates;
         if (this.size == 1 && !Setting.SPAWNER_DISPLAY_TAGS_SINGLE_AMOUNT.getBoolean()) {
-            displayStrings = localeManager.getLocaleMessages("spawner-hologram-display" + (this.spawnerTile.getSpawnerType().isEmpty() ? "-empty" : "") + "-single", this.getPlaceholders());
+            templates = localeManager.getLocaleTemplates("spawner-hologram-display" + (this.spawnerTile.getSpawnerType().isEmpty() ? "-empty" : "") + "-single");
         } else {
-            displayStrings = localeManager.getLocaleMessages("spawner-hologram-display" + (this.spawnerTile.getSpawnerType().isEmpty() ? "-empty" : ""), this.getPlaceholders());
+            templates = localeManager.getLocaleTemplates("spawner-hologram-display" + (this.spawnerTile.getSpawnerType().isEmpty() ? "-empty" : ""));
+        }
+
+        List<String> displayStrings = templates.stream().map(x -> x.render(this::getPlaceholderValue)).toList();
+
+        hologramManager.createOrUpdateHologram(this.block, Setting.SPAWNER_DISPLAY_TAGS_HEIGHT_OFFSET.getDouble(), displayStrings);
+    }
+
+    /**
+     * Updates the hologram of this spawner only if a player is watching it, otherwise the update is deferred until a
+     * player starts watching it
+     *
+     * @return true if the hologram was updated, false if the update was deferred
+     */
+    public boolean updateDisplayIfWatched() {
+        if (!Setting.SPAWNER_DISPLAY_TAGS.getBoolean() || this.stackSettings == null)
+            return true;
+
+        HologramManager hologramManager = RoseStacker.getInstance().getManager(HologramManager.class);
+        if (!hologramManager.hasHologram(this.block) || hologramManager.isWatched(this.block)) {
+            this.updateDisplay();
+            return true;
         }
 
-        hologramManager.createOrUpdateHologram(location, displayStrings);
+        hologramManager.deferRefresh(this.block, this::updateDisplay);
+        return false;
     }
 
-    private StringPlaceholders getPlaceholders() {
-        int delay = this.spawnerTile.getDelay();
-        return StringPlaceholders.builder("name", this.stackSettings.getDisplayName())
-                .add("amount", StackerUtils.formatNumber(this.getStackSize()))
-                .add("max_amount", StackerUtils.formatNumber(this.getStackSettings().getMaxStackSize()))
-                .add("time_remaining", StackerUtils.formatTicksAsTime(delay))
-                .add("ticks_remaining", StackerUtils.formatNumber(delay))
-                .add("total_spawned", StackerUtils.formatNumber(PersistentDataUtils.getTotalSpawnCount(this.spawnerTile)))
-                .build();
+    private String getPlaceholderValue(String placeholder) {
+        return switch (placeholder) {
+            case "name" -> this.stackSettings.getDisplayName();
+            case "amount" -> StackerUtils.formatNumber(this.getStackSize());
+            case "max_amount" -> StackerUtils.formatNumber(this.getStackSettings().getMaxStackSize());
+            case "time_remaining" -> StackerUtils.formatTicksAsTime(this.spawnerTile.getDelay());
+            case "ticks_remaining" -> StackerUtils.formatNumber(this.spawnerTile.getDelay());
+            case "total_spawned" -> StackerUtils.formatNumber(PersistentDataUtils.getTotalSpawnCount(this.spawnerTile));
+            default -> null;
+        };
     }
 
     public Location getHologramLocation() {
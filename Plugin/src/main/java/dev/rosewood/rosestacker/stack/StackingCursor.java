@@ -0,0 +1,105 @@
+package dev.rosewood.rosestacker.stack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Walks over the stacks of a world across multiple time-budgeted stacking runs.
+ * A sweep visits every stack that existed when the sweep started, a run visits as many as its budget allows.
+ * Only accessed by one stacking run at a time, the coverage getters may be read from any thread.
+ */
+public class StackingCursor {
+
+    private volatile List<UUID> order;
+    private volatile int position;
+    private boolean fullSweep;
+
+    private volatile int runsThisSweep, runsLastSweep;
+    private volatile int processedLastRun;
+    private volatile long completedSweeps;
+
+    public StackingCursor() {
+        this.order = List.of();
+    }
+
+    /**
+     * Starts a run, beginning a new sweep over the given keys if the last one was completed
+     *
+     * @param keys The keys of all current stacks
+     * @return true if this run starts a new sweep
+     */
+    boolean beginRun(Collection<UUID> keys) {
+        boolean newSweep = this.position >= this.order.size();
+        if (newSweep) {
+            this.order = new ArrayList<>(keys);
+            this.position = 0;
+            this.runsThisSweep = 0;
+        }
+
+        this.runsThisSweep++;
+        this.processedLastRun = 0;
+        return newSweep;
+    }
+
+    /**
+     * @return the next key in the current sweep, or null if the sweep is complete
+     */
+    UUID next() {
+        if (this.position >= this.order.size())
+            return null;
+
+        this.processedLastRun++;
+        return this.order.get(this.position++);
+    }
+
+    /**
+     * Ends a run, recording coverage if the sweep was completed
+     */
+    void endRun() {
+        if (this.position < this.order.size())
+            return;
+
+        this.runsLastSweep = this.runsThisSweep;
+        this.completedSweeps++;
+    }
+
+    boolean isFullSweep() {
+        return this.fullSweep;
+    }
+
+    void setFullSweep(boolean fullSweep) {
+        this.fullSweep = fullSweep;
+    }
+
+    /**
+     * @return the number of runs the last completed sweep took, 1 if sweeps fit within a single run
+     */
+    public int getRunsLastSweep() {
+        return this.runsLastSweep;
+    }
+
+    /**
+     * @return the number of stacks visited by the last run
+     */
+    public int getProcessedLastRun() {
+        return this.processedLastRun;
+    }
+
+    /**
+     * @return the total number of sweeps completed
+     */
+    public long getCompletedSweeps() {
+        return this.completedSweeps;
+    }
+
+    /**
+     * @return the fraction of the current sweep that has been completed, between 0 and 1
+     */
+    public double getSweepProgress() {
+        int size = this.order.size();
+        return size == 0 ? 1 : Math.min(1, (double) this.position / size);
+    }
+
+}
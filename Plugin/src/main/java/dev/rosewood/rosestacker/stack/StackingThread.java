@@ -14,6 +14,8 @@ import dev.rosewood.rosestacker.hook.WorldGuardHook;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.manager.EntityCacheManager;
 import dev.rosewood.rosestacker.manager.HologramManager;
+import dev.rosewood.rosestacker.manager.LineOfSightManager;
+import dev.rosewood.rosestacker.manager.NametagManager;
 import dev.rosewood.rosestacker.manager.StackManager;
 import dev.rosewood.rosestacker.manager.StackSettingManager;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
@@ -25,14 +27,18 @@ import dev.rosewood.rosestacker.stack.settings.ItemStackSettings;
 import dev.rosewood.rosestacker.utils.DataUtils;
 import dev.rosewood.rosestacker.utils.EntityUtils;
 import dev.rosewood.rosestacker.utils.ItemUtils;
+import dev.rosewood.rosestacker.utils.LongObjectMap;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import dev.rosewood.rosestacker.utils.ThreadUtils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -40,10 +46,15 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
@@ -68,8 +79,14 @@ import org.bukkit.util.Vector;
 
 public class StackingThread implements StackingLogic, AutoCloseable {
 
-    private final static int CLEANUP_TIMER_TARGET = 10;
     private final static String NEW_METADATA = "RS_new";
+    private final static double NAMETAG_SEARCH_RADIUS = Math.sqrt(StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE);
+
+    /**
+     * How many stacks are taken from the cursor at a time when stacking in parallel, the time budget is checked between
+     * batches so every stack taken from the cursor is always visited
+     */
+    private final static int SHARDED_BATCH_SIZE = 256;
 
     private final static Cache<UUID, Boolean> REMOVED_ENTITIES = CacheBuilder.newBuilder().expireAfterWrite(5, TimeUnit.SECONDS).build();
 
@@ -79,14 +96,41 @@ public class StackingThread implements StackingLogic, AutoCloseable {
     private final HologramManager hologramManager;
     private final World targetWorld;
 
-    private final BukkitTask entityStackTask, itemStackTask, nametagTask, hologramTask;
+    private final BukkitTask entityStackTask, itemStackTask, nametagTask, hologramTask, commitTask, snapshotTask;
+    private final CommitQueue commitQueue;
 
     private final Map<UUID, StackedEntity> stackedEntities;
     private final Map<UUID, StackedItem> stackedItems;
-    private final Map<Chunk, StackChunkData> stackChunkData;
+    private final LongObjectMap<StackChunkData> stackChunkData;
+    private final StackCounters stackCounters;
+    private final ChunkStackIndex<StackedEntity> entityChunkIndex;
+    private final ChunkStackIndex<StackedItem> itemChunkIndex;
+
+    private final EntityStackingAlgorithm entityStackingAlgorithm;
+    private volatile EntitySnapshot entitySnapshot;
+
+    private final StackingCursor entityStackCursor, itemStackCursor;
+    private final AtomicBoolean entityPassRunning, itemPassRunning;
+    private final long passBudgetNanos;
+
+    private final int regionSize;
+    private final double entityReach, itemReach;
+
+    private final Map<UUID, PassState> entityPassStates, itemPassStates;
+    private final boolean dirtyStacking;
+    private final double dirtyMoveThresholdSqrd;
+    private final int fullSweepInterval;
+    private int entitySweepCounter, itemSweepCounter;
+
+    private final Set<UUID> pendingRegistrations;
+    private final int auditInterval;
+    private int auditTimer;
+    private volatile int lastAuditFound;
+    private volatile long totalAuditFound;
+    private volatile int lastSkippedHologramRefreshes;
+    private volatile long totalSkippedHologramRefreshes;
 
     private boolean entityStackSwitch;
-    private int cleanupTimer;
 
     boolean dynamicEntityTags, dynamicItemTags;
     double entityDynamicViewRangeSqrd, itemDynamicViewRangeSqrd;
@@ -104,12 +148,40 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         this.itemStackTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::stackItems, 5L, Setting.ITEM_STACK_FREQUENCY.getLong());
         this.nametagTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::processNametags, 5L, Setting.NAMETAG_UPDATE_FREQUENCY.getLong());
         this.hologramTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this.rosePlugin, this::updateHolograms, 5L, Setting.HOLOGRAM_UPDATE_FREQUENCY.getLong());
+        this.commitQueue = new CommitQueue(this.rosePlugin, Setting.PERFORMANCE_COMMIT_QUEUE_TIME_BUDGET.getLong());
+        this.commitTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this.commitQueue::drain, 1L, 1L);
+        this.snapshotTask = Bukkit.getScheduler().runTaskTimer(this.rosePlugin, this::captureEntitySnapshot, 1L, 1L);
+        this.entitySnapshot = EntitySnapshot.EMPTY;
 
         this.stackedEntities = new ConcurrentHashMap<>();
         this.stackedItems = new ConcurrentHashMap<>();
-        this.stackChunkData = new ConcurrentHashMap<>();
-
-        this.cleanupTimer = 0;
+        this.stackChunkData = new LongObjectMap<>();
+        this.stackCounters = new StackCounters(stackManager.getStackCounters());
+        this.entityChunkIndex = new ChunkStackIndex<>(StackedEntity::getEntity, this.entityCacheManager::moveCachedEntity);
+        this.itemChunkIndex = new ChunkStackIndex<>(StackedItem::getItem, this.entityCacheManager::moveCachedEntity);
+
+        this.pendingRegistrations = ConcurrentHashMap.newKeySet();
+        this.auditInterval = Setting.PERFORMANCE_UNSTACKED_AUDIT_INTERVAL.getInt();
+        this.auditTimer = 0;
+
+        this.entityStackingAlgorithm = EntityStackingAlgorithm.fromName(Setting.PERFORMANCE_ENTITY_STACKING_ALGORITHM.getString());
+
+        this.entityStackCursor = new StackingCursor();
+        this.itemStackCursor = new StackingCursor();
+        this.entityPassRunning = new AtomicBoolean();
+        this.itemPassRunning = new AtomicBoolean();
+        this.passBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Setting.PERFORMANCE_STACKING_PASS_TIME_BUDGET.getLong());
+
+        this.regionSize = Math.max(1, Setting.PERFORMANCE_PARALLEL_STACKING_REGION_SIZE.getInt());
+        this.entityReach = this.getEntityReach();
+        this.itemReach = Setting.ITEM_MERGE_RADIUS.getDouble();
+
+        this.entityPassStates = new ConcurrentHashMap<>();
+        this.itemPassStates = new ConcurrentHashMap<>();
+        this.dirtyStacking = Setting.PERFORMANCE_DIRTY_STACKING_ENABLED.getBoolean();
+        double dirtyMoveThreshold = Setting.PERFORMANCE_DIRTY_STACKING_MOVE_THRESHOLD.getDouble();
+        this.dirtyMoveThresholdSqrd = dirtyMoveThreshold * dirtyMoveThreshold;
+        this.fullSweepInterval = Math.max(1, Setting.PERFORMANCE_DIRTY_STACKING_FULL_SWEEP_INTERVAL.getInt());
 
         this.dynamicEntityTags = Setting.ENTITY_DISPLAY_TAGS.getBoolean() && Setting.ENTITY_DYNAMIC_TAG_VIEW_RANGE_ENABLED.getBoolean();
         this.dynamicItemTags = Setting.ITEM_DISPLAY_TAGS.getBoolean() && Setting.ITEM_DYNAMIC_TAG_VIEW_RANGE_ENABLED.getBoolean();
@@ -135,8 +207,29 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         this.targetWorld.getLivingEntities().forEach(PersistentDataUtils::applyDisabledAi);
     }
 
+    /**
+     * Captures the entity state the async passes read from, runs on the main thread every tick
+     */
+    private void captureEntitySnapshot() {
+        this.entitySnapshot = EntitySnapshot.capture(this.targetWorld, this.stackedEntities.values(), this.stackedItems.values(), this.targetWorld.getPlayers(),
+                this.entityChunkIndex, this.itemChunkIndex);
+    }
+
     private void stackEntities() {
-        boolean itemStackingEnabled = this.stackManager.isItemStackingEnabled();
+        // Don't let runs pile up if the previous one is still going
+        if (!this.entityPassRunning.compareAndSet(false, true))
+            return;
+
+        EntitySnapshot.bind(this.entitySnapshot);
+        try {
+            this.stackEntitiesFromSnapshot();
+        } finally {
+            EntitySnapshot.unbind();
+            this.entityPassRunning.set(false);
+        }
+    }
+
+    private void stackEntitiesFromSnapshot() {
         boolean entityStackingEnabled = this.stackManager.isEntityStackingEnabled();
         if (!entityStackingEnabled)
             return;
@@ -146,8 +239,8 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             boolean minSplitIfLower = Setting.ENTITY_MIN_SPLIT_IF_LOWER.getBoolean();
             for (StackedEntity stackedEntity : this.stackedEntities.values()) {
                 LivingEntity entity = stackedEntity.getEntity();
-                if (!stackedEntity.shouldStayStacked() && entity.isValid()) {
-                    ThreadUtils.runSync(() -> {
+                if (!stackedEntity.shouldStayStacked() && EntitySnapshot.isValid(entity)) {
+                    this.commitQueue.submit(() -> {
                         if (stackedEntity.getStackSize() > 1)
                             this.splitEntityStack(stackedEntity);
                     });
@@ -155,7 +248,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
                     NMSHandler nmsHandler = NMSAdapter.getHandler();
                     StackedEntityDataStorage nbt = stackedEntity.getDataStorage();
                     stackedEntity.setDataStorage(nmsHandler.createEntityDataStorage(entity, this.stackManager.getEntityDataStorageType(entity.getType())));
-                    ThreadUtils.runSync(() -> {
+                    this.commitQueue.submit(() -> {
                         for (EntityDataEntry entityDataEntry : nbt.getAll())
                             entityDataEntry.createEntity(stackedEntity.getLocation(), true, entity.getType());
                     });
@@ -165,39 +258,125 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         // Auto stack entities
         if (this.entityStackSwitch) {
-            for (StackedEntity stackedEntity : this.stackedEntities.values()) {
-                LivingEntity livingEntity = stackedEntity.getEntity();
-                if (this.isRemoved(livingEntity)) {
-                    this.removeEntityStack(stackedEntity);
-                    continue;
-                }
+            if (this.entityStackingAlgorithm == EntityStackingAlgorithm.CLUSTER) {
+                this.stackEntityClusters(this.checkFullSweep(this.entityPassStates, this.stackedEntities.keySet(), true));
+            } else {
+                StackingCursor cursor = this.entityStackCursor;
+                if (cursor.beginRun(this.stackedEntities.keySet()))
+                    cursor.setFullSweep(this.checkFullSweep(this.entityPassStates, this.stackedEntities.keySet(), true));
+
+                Consumer<StackedEntity> stacker = stackedEntity -> {
+                    LivingEntity livingEntity = stackedEntity.getEntity();
+                    if (this.isRemoved(livingEntity)) {
+                        this.removeEntityStack(stackedEntity);
+                        return;
+                    }
 
-                this.tryStackEntity(stackedEntity);
+                    if (this.checkDirty(this.entityPassStates, livingEntity, stackedEntity.getStackSize()) || cursor.isFullSweep())
+                        this.tryStackEntity(stackedEntity);
+                };
+
+                long deadline = System.nanoTime() + this.passBudgetNanos;
+                ForkJoinPool pool = this.stackManager.getStackingPool();
+                if (pool != null && RegionShards.canShard(this.entityReach, this.regionSize)) {
+                    int batched;
+                    do {
+                        RegionShards<StackedEntity> shards = new RegionShards<>(this.regionSize);
+                        batched = 0;
+                        UUID key;
+                        while (batched < SHARDED_BATCH_SIZE && (key = cursor.next()) != null) {
+                            batched++;
+                            StackedEntity stackedEntity = this.stackedEntities.get(key);
+                            if (stackedEntity == null)
+                                continue;
+
+                            LivingEntity livingEntity = stackedEntity.getEntity();
+                            if (livingEntity == null) {
+                                this.removeEntityStack(stackedEntity);
+                                continue;
+                            }
+
+                            Location location = this.getLocation(livingEntity);
+                            shards.add(stackedEntity, location.getX(), location.getZ());
+                        }
+                        this.runSharded(pool, shards, stacker);
+                    } while (batched == SHARDED_BATCH_SIZE && (this.passBudgetNanos <= 0 || System.nanoTime() < deadline));
+                } else {
+                    UUID key;
+                    while ((key = cursor.next()) != null) {
+                        StackedEntity stackedEntity = this.stackedEntities.get(key);
+                        if (stackedEntity == null)
+                            continue;
+
+                        stacker.accept(stackedEntity);
+                        if (this.passBudgetNanos > 0 && System.nanoTime() >= deadline)
+                            break;
+                    }
+                }
+                cursor.endRun();
             }
         }
 
         // Run entity stacking half as often as the unstacking
         this.entityStackSwitch = !this.entityStackSwitch;
 
-        // Cleans up entities/items that aren't stacked
-        this.cleanupTimer++;
-        if (this.cleanupTimer >= CLEANUP_TIMER_TARGET) {
-            ThreadUtils.runSync(() -> {
-                for (Entity entity : this.targetWorld.getEntities()) {
-                    if (this.isRemoved(entity))
-                        continue;
+        // Register entities/items that were queued by events but aren't stacked yet
+        if (!this.pendingRegistrations.isEmpty())
+            this.commitQueue.submit(this::registerPending);
 
-                    if (entity instanceof LivingEntity livingEntity && entity.getType() != EntityType.ARMOR_STAND && entity.getType() != EntityType.PLAYER && !this.isEntityStacked(livingEntity)) {
-                        this.createEntityStack(livingEntity, false);
-                    } else if (itemStackingEnabled && entity.getType() == EntityType.DROPPED_ITEM) {
-                        Item item = (Item) entity;
-                        if (!this.isItemStacked(item))
-                            this.createItemStack(item, false);
-                    }
-                }
-            });
-            this.cleanupTimer = 0;
+        // Audit the entire world for entities/items that were missed by the events
+        if (this.auditInterval > 0 && ++this.auditTimer >= this.auditInterval) {
+            this.commitQueue.submit(this::auditUnstacked);
+            this.auditTimer = 0;
+        }
+    }
+
+    /**
+     * Creates stacks for the entities queued with {@link #queueRegistration(UUID)}, runs on the main thread
+     */
+    private void registerPending() {
+        Iterator<UUID> iterator = this.pendingRegistrations.iterator();
+        while (iterator.hasNext()) {
+            UUID uuid = iterator.next();
+            iterator.remove();
+
+            Entity entity = Bukkit.getEntity(uuid);
+            if (entity != null && entity.getWorld() == this.targetWorld)
+                this.registerIfUnstacked(entity);
+        }
+    }
+
+    /**
+     * Checks every entity in the world for ones that aren't stacked, runs on the main thread
+     */
+    private void auditUnstacked() {
+        int found = 0;
+        for (Entity entity : this.targetWorld.getEntities())
+            if (this.registerIfUnstacked(entity))
+                found++;
+
+        this.lastAuditFound = found;
+        this.totalAuditFound += found;
+    }
+
+    /**
+     * Creates a stack for an entity or item if it doesn't have one yet
+     *
+     * @param entity The entity or item
+     * @return true if a new stack was created, false otherwise
+     */
+    private boolean registerIfUnstacked(Entity entity) {
+        if (!entity.isValid() || this.isRemoved(entity))
+            return false;
+
+        if (entity instanceof LivingEntity livingEntity && entity.getType() != EntityType.ARMOR_STAND && entity.getType() != EntityType.PLAYER) {
+            return !this.isEntityStacked(livingEntity) && this.createEntityStack(livingEntity, false) != null;
+        } else if (entity.getType() == EntityType.DROPPED_ITEM && this.stackManager.isItemStackingEnabled()) {
+            Item item = (Item) entity;
+            return !this.isItemStacked(item) && this.createItemStack(item, false) != null;
         }
+
+        return false;
     }
 
     private void stackItems() {
@@ -205,15 +384,70 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!itemStackingEnabled)
             return;
 
-        // Auto stack items
-        for (StackedItem stackedItem : this.stackedItems.values()) {
-            Item item = stackedItem.getItem();
-            if (item == null || this.isRemoved(item)) {
-                this.removeItemStack(stackedItem);
-                continue;
-            }
+        // Don't let runs pile up if the previous one is still going
+        if (!this.itemPassRunning.compareAndSet(false, true))
+            return;
 
-            this.tryStackItem(stackedItem);
+        EntitySnapshot.bind(this.entitySnapshot);
+        try {
+            // Auto stack items
+            StackingCursor cursor = this.itemStackCursor;
+            if (cursor.beginRun(this.stackedItems.keySet()))
+                cursor.setFullSweep(this.checkFullSweep(this.itemPassStates, this.stackedItems.keySet(), false));
+
+            EntitySnapshot snapshot = EntitySnapshot.bound();
+            Consumer<StackedItem> stacker = stackedItem -> {
+                Item item = stackedItem.getItem();
+                if (item == null || this.isRemoved(item)) {
+                    this.removeItemStack(stackedItem);
+                    return;
+                }
+
+                if (this.checkDirty(this.itemPassStates, item, stackedItem.getStackSize()) || cursor.isFullSweep())
+                    this.tryStackItem(stackedItem, snapshot);
+            };
+
+            long deadline = System.nanoTime() + this.passBudgetNanos;
+            ForkJoinPool pool = this.stackManager.getStackingPool();
+            if (pool != null && RegionShards.canShard(this.itemReach, this.regionSize)) {
+                int batched;
+                do {
+                    RegionShards<StackedItem> shards = new RegionShards<>(this.regionSize);
+                    batched = 0;
+                    UUID key;
+                    while (batched < SHARDED_BATCH_SIZE && (key = cursor.next()) != null) {
+                        batched++;
+                        StackedItem stackedItem = this.stackedItems.get(key);
+                        if (stackedItem == null)
+                            continue;
+
+                        Item item = stackedItem.getItem();
+                        if (item == null) {
+                            this.removeItemStack(stackedItem);
+                            continue;
+                        }
+
+                        Location location = this.getLocation(item);
+                        shards.add(stackedItem, location.getX(), location.getZ());
+                    }
+                    this.runSharded(pool, shards, stacker);
+                } while (batched == SHARDED_BATCH_SIZE && (this.passBudgetNanos <= 0 || System.nanoTime() < deadline));
+            } else {
+                UUID key;
+                while ((key = cursor.next()) != null) {
+                    StackedItem stackedItem = this.stackedItems.get(key);
+                    if (stackedItem == null)
+                        continue;
+
+                    stacker.accept(stackedItem);
+                    if (this.passBudgetNanos > 0 && System.nanoTime() >= deadline)
+                        break;
+                }
+            }
+            cursor.endRun();
+        } finally {
+            EntitySnapshot.unbind();
+            this.itemPassRunning.set(false);
         }
     }
 
@@ -226,84 +460,106 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             return;
 
         // Handle dynamic stack tags
-        NMSHandler nmsHandler = NMSAdapter.getHandler();
-        Set<EntityType> validEntities = StackerUtils.getStackableEntityTypes();
+        EntitySnapshot snapshot = this.entitySnapshot;
+        NametagManager nametagManager = this.rosePlugin.getManager(NametagManager.class);
+        LineOfSightManager lineOfSightManager = this.rosePlugin.getManager(LineOfSightManager.class);
         boolean displaySingleEntityTags = Setting.ENTITY_DISPLAY_TAGS_SINGLE.getBoolean();
         boolean displaySingleItemTags = Setting.ITEM_DISPLAY_TAGS_SINGLE.getBoolean();
 
-        List<Entity> entities = new ArrayList<>();
-        entities.addAll(this.stackedEntities.values().stream()
-                .filter(x -> x.getStackSize() > 1 || displaySingleEntityTags)
-                .map(StackedEntity::getEntity)
-                .filter(Objects::nonNull)
-                .filter(x -> validEntities.contains(x.getType()))
-                .toList());
-        entities.addAll(this.stackedItems.values().stream()
-                .filter(x -> x.getStackSize() > 1 || displaySingleItemTags)
-                .map(StackedItem::getItem)
-                .toList());
-
-        for (Player player : players) {
-            if (player.getWorld() != this.targetWorld)
-                continue;
-
-            ItemStack itemStack = player.getInventory().getItemInMainHand();
-            boolean displayStackingToolParticles = ItemUtils.isStackingTool(itemStack);
+        Set<EntityType> taggedTypes = EnumSet.of(EntityType.DROPPED_ITEM);
+        taggedTypes.addAll(StackerUtils.getStackableEntityTypes());
 
-            for (Entity entity : entities) {
-                if (entity.getType() == EntityType.PLAYER)
+        // Send each player's nametag updates for this pass together
+        NMSHandler nmsHandler = NMSAdapter.getHandler();
+        nmsHandler.beginPacketBatch();
+        try {
+            for (Player player : players) {
+                int playerIndex = snapshot.indexOf(player);
+                if (playerIndex == EntitySnapshot.NOT_FOUND || !snapshot.isValid(playerIndex))
                     continue;
 
-                if ((entity.getType() == EntityType.DROPPED_ITEM || entity.getType() == EntityType.ARMOR_STAND)
-                        && (entity.getCustomName() == null || !entity.isCustomNameVisible()))
-                    continue;
+                ItemStack itemStack = player.getInventory().getItemInMainHand();
+                boolean displayStackingToolParticles = ItemUtils.isStackingTool(itemStack);
+
+                // Only visit the stacks in chunks the player could possibly see, entities that changed worlds or were
+                // created since the last tick aren't part of the snapshot and are skipped
+                Location playerLocation = snapshot.toLocation(playerIndex, this.targetWorld);
+                this.entityCacheManager.forEachNearbyEntity(playerLocation, NAMETAG_SEARCH_RADIUS, taggedTypes, snapshot, entity -> {
+                    if (entity instanceof Item item) {
+                        StackedItem stackedItem = this.stackedItems.get(item.getUniqueId());
+                        if (stackedItem == null || (stackedItem.getStackSize() <= 1 && !displaySingleItemTags)
+                                || entity.getCustomName() == null || !entity.isCustomNameVisible())
+                            return;
+                    } else {
+                        StackedEntity stackedEntity = this.stackedEntities.get(entity.getUniqueId());
+                        if (stackedEntity == null || (stackedEntity.getStackSize() <= 1 && !displaySingleEntityTags))
+                            return;
+                    }
 
-                double distanceSqrd;
-                try { // The locations can end up comparing cross-world if the player/entity switches worlds mid-loop due to being async
-                    distanceSqrd = player.getLocation().distanceSquared(entity.getLocation());
-                } catch (Exception e) {
-                    continue;
-                }
+                    this.updateNametag(snapshot, nametagManager, lineOfSightManager, player, playerIndex, entity, displayStackingToolParticles);
+                });
+            }
+        } finally {
+            nmsHandler.flushPacketBatch();
+        }
+    }
 
-                if (distanceSqrd > StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE)
-                    continue;
+    private void updateNametag(EntitySnapshot snapshot, NametagManager nametagManager, LineOfSightManager lineOfSightManager, Player player, int playerIndex, Entity entity, boolean displayStackingToolParticles) {
+        int entityIndex = snapshot.indexOf(entity);
+        if (entityIndex == EntitySnapshot.NOT_FOUND)
+            return;
 
-                boolean visible;
-                if (this.dynamicItemTags && entity.getType() == EntityType.DROPPED_ITEM) {
-                    visible = distanceSqrd < this.itemDynamicViewRangeSqrd;
-                    if (this.itemDynamicWallDetection)
-                        visible &= EntityUtils.hasLineOfSight(player, entity, 0.75, true);
-                } else if (this.dynamicEntityTags) {
-                    visible = distanceSqrd < this.entityDynamicViewRangeSqrd;
-                    if (this.entityDynamicWallDetection)
-                        visible &= EntityUtils.hasLineOfSight(player, entity, 0.75, true);
-                } else continue;
-
-                if (entity.getType() != EntityType.ARMOR_STAND && entity instanceof LivingEntity livingEntity) {
-                    StackedEntity stackedEntity = this.getStackedEntity(livingEntity);
-                    if (stackedEntity != null)
-                        nmsHandler.updateEntityNameTagForPlayer(player, entity, stackedEntity.getDisplayName(), stackedEntity.isDisplayNameVisible() && visible);
-
-                    // Spawn particles for holding the stacking tool
-                    if (visible && displayStackingToolParticles) {
-                        Location location = entity.getLocation().add(0, livingEntity.getEyeHeight(true) + 0.75, 0);
-                        DustOptions dustOptions;
-                        if (PersistentDataUtils.isUnstackable(livingEntity)) {
-                            dustOptions = StackerUtils.UNSTACKABLE_DUST_OPTIONS;
-                        } else {
-                            dustOptions = StackerUtils.STACKABLE_DUST_OPTIONS;
-                        }
-                        player.spawnParticle(Particle.REDSTONE, location, 1, 0.0, 0.0, 0.0, 0.0, dustOptions);
-                    }
+        double distanceSqrd = snapshot.distanceSquared(playerIndex, entityIndex);
+        if (distanceSqrd > StackerUtils.ASSUMED_ENTITY_VISIBILITY_RANGE)
+            return;
+
+        boolean visible;
+        if (this.dynamicItemTags && entity.getType() == EntityType.DROPPED_ITEM) {
+            visible = distanceSqrd < this.itemDynamicViewRangeSqrd;
+            if (this.itemDynamicWallDetection)
+                visible &= lineOfSightManager.hasLineOfSight(player, entity);
+        } else if (this.dynamicEntityTags) {
+            visible = distanceSqrd < this.entityDynamicViewRangeSqrd;
+            if (this.entityDynamicWallDetection)
+                visible &= lineOfSightManager.hasLineOfSight(player, entity);
+        } else return;
+
+        if (entity instanceof LivingEntity livingEntity) {
+            StackedEntity stackedEntity = this.getStackedEntity(livingEntity);
+            if (stackedEntity != null)
+                nametagManager.updateNameTag(player, entity, stackedEntity.getDisplayName(), stackedEntity.isDisplayNameVisible() && visible);
+
+            // Spawn particles for holding the stacking tool
+            if (visible && displayStackingToolParticles) {
+                Location location = snapshot.toLocation(entityIndex, this.targetWorld).add(0, livingEntity.getEyeHeight(true) + 0.75, 0);
+                DustOptions dustOptions;
+                if (PersistentDataUtils.isUnstackable(livingEntity)) {
+                    dustOptions = StackerUtils.UNSTACKABLE_DUST_OPTIONS;
                 } else {
-                    nmsHandler.updateEntityNameTagVisibilityForPlayer(player, entity, visible);
+                    dustOptions = StackerUtils.STACKABLE_DUST_OPTIONS;
                 }
+                player.spawnParticle(Particle.REDSTONE, location, 1, 0.0, 0.0, 0.0, 0.0, dustOptions);
             }
+        } else {
+            nametagManager.updateNameTagVisibility(player, entity, visible);
         }
     }
 
     private void updateHolograms() {
-        this.stackChunkData.values().stream().flatMap(x -> x.getSpawners().values().stream()).forEach(StackedSpawner::updateDisplay);
+        NMSHandler nmsHandler = NMSAdapter.getHandler();
+        nmsHandler.beginPacketBatch();
+        try {
+            int skipped = 0;
+            for (StackChunkData chunkData : this.getAllChunkData())
+                for (StackedSpawner stackedSpawner : chunkData.getSpawners())
+                    if (!stackedSpawner.updateDisplayIfWatched())
+                        skipped++;
+
+            this.lastSkippedHologramRefreshes = skipped;
+            this.totalSkippedHologramRefreshes += skipped;
+        } finally {
+            nmsHandler.flushPacketBatch();
+        }
     }
 
     @Override
@@ -321,14 +577,31 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (this.hologramTask != null)
             this.hologramTask.cancel();
 
+        if (this.commitTask != null)
+            this.commitTask.cancel();
+
+        if (this.snapshotTask != null)
+            this.snapshotTask.cancel();
+
+        // Apply any changes the stacking passes haven't committed yet, so merged entities don't get saved with the world
+        if (Bukkit.isPrimaryThread())
+            this.commitQueue.drainAll();
+
         // Flush remaining blocks and entities, this typically happens when chunks are still loaded and Bukkit#unloadWorld is called
         this.saveChunkEntities(null,
                 stackedEntities.values().stream().map(stackedEntity -> (Entity) stackedEntity.getEntity()).toList(), true);
 
-        for (Chunk chunk : this.stackChunkData.keySet()) {
-            this.saveChunkBlocks(chunk, true);
+        List<Long> chunkKeys = new ArrayList<>();
+        synchronized (this.stackChunkData) {
+            this.stackChunkData.forEachKey(chunkKeys::add);
         }
 
+        for (long chunkKey : chunkKeys)
+            this.saveChunkBlocks(this.targetWorld.getChunkAt(StackerUtils.getChunkKeyX(chunkKey), StackerUtils.getChunkKeyZ(chunkKey)), true);
+
+        // Anything still counted here no longer exists as far as the global counters are concerned
+        this.stackCounters.detach();
+
     }
 
     @Override
@@ -344,16 +617,18 @@ public class StackingThread implements StackingLogic, AutoCloseable {
     @Override
     public Map<Block, StackedBlock> getStackedBlocks() {
         Map<Block, StackedBlock> stackedBlocks = new HashMap<>();
-        for (StackChunkData stackChunkData : this.stackChunkData.values())
-            stackedBlocks.putAll(stackChunkData.getBlocks());
+        for (StackChunkData stackChunkData : this.getAllChunkData())
+            for (StackedBlock stackedBlock : stackChunkData.getBlocks())
+                stackedBlocks.put(stackedBlock.getBlock(), stackedBlock);
         return stackedBlocks;
     }
 
     @Override
     public Map<Block, StackedSpawner> getStackedSpawners() {
         Map<Block, StackedSpawner> stackedSpawners = new HashMap<>();
-        for (StackChunkData stackChunkData : this.stackChunkData.values())
-            stackedSpawners.putAll(stackChunkData.getSpawners());
+        for (StackChunkData stackChunkData : this.getAllChunkData())
+            for (StackedSpawner stackedSpawner : stackChunkData.getSpawners())
+                stackedSpawners.put(stackedSpawner.getBlock(), stackedSpawner);
         return stackedSpawners;
     }
 
@@ -369,7 +644,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
     @Override
     public StackedBlock getStackedBlock(Block block) {
-        StackChunkData stackChunkData = this.stackChunkData.get(block.getChunk());
+        StackChunkData stackChunkData = this.getChunkData(block);
         if (stackChunkData == null)
             return null;
         return stackChunkData.getBlock(block);
@@ -377,7 +652,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
     @Override
     public StackedSpawner getStackedSpawner(Block block) {
-        StackChunkData stackChunkData = this.stackChunkData.get(block.getChunk());
+        StackChunkData stackChunkData = this.getChunkData(block);
         if (stackChunkData == null)
             return null;
         return stackChunkData.getSpawner(block);
@@ -408,13 +683,13 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         LivingEntity entity = stackedEntity.getEntity();
         if (entity != null) {
             UUID key = stackedEntity.getEntity().getUniqueId();
-            this.stackedEntities.remove(key);
+            this.untrackEntityStack(key);
             this.setRemoved(entity);
         } else {
             // Entity is null so we have to remove by value instead
             for (Entry<UUID, StackedEntity> entry : this.stackedEntities.entrySet()) {
                 if (entry.getValue() == stackedEntity) {
-                    this.stackedEntities.remove(entry.getKey());
+                    this.untrackEntityStack(entry.getKey());
                     break;
                 }
             }
@@ -426,13 +701,13 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         Item item = stackedItem.getItem();
         if (item != null) {
             UUID key = stackedItem.getItem().getUniqueId();
-            this.stackedItems.remove(key);
+            this.untrackItemStack(key);
             this.setRemoved(item);
         } else {
             // Item is null so we have to remove by value instead
             for (Entry<UUID, StackedItem> entry : this.stackedItems.entrySet()) {
                 if (entry.getValue() == stackedItem) {
-                    this.stackedItems.remove(entry.getKey());
+                    this.untrackItemStack(entry.getKey());
                     break;
                 }
             }
@@ -444,7 +719,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         Block key = stackedBlock.getBlock();
         stackedBlock.kickOutGuiViewers();
 
-        StackChunkData stackChunkData = this.stackChunkData.get(key.getChunk());
+        StackChunkData stackChunkData = this.getChunkData(key);
         if (stackChunkData != null)
             stackChunkData.removeBlock(stackedBlock);
     }
@@ -454,7 +729,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         Block key = stackedSpawner.getBlock();
         stackedSpawner.kickOutGuiViewers();
 
-        StackChunkData stackChunkData = this.stackChunkData.get(key.getChunk());
+        StackChunkData stackChunkData = this.getChunkData(key);
         if (stackChunkData != null)
             stackChunkData.removeSpawner(stackedSpawner);
     }
@@ -474,6 +749,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         toRemove.stream().map(StackedEntity::getEntity).forEach(this::setRemoved);
         toRemove.stream().map(StackedEntity::getEntity).forEach(LivingEntity::remove);
         this.stackedEntities.values().removeIf(toRemove::contains);
+        toRemove.forEach(this::releaseEntityStack);
 
         return toRemove.size();
     }
@@ -490,6 +766,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         toRemove.stream().map(StackedItem::getItem).forEach(this::setRemoved);
         toRemove.stream().map(StackedItem::getItem).forEach(Item::remove);
         this.stackedItems.values().removeIf(toRemove::contains);
+        toRemove.forEach(this::releaseItemStack);
 
         return toRemove.size();
     }
@@ -498,8 +775,8 @@ public class StackingThread implements StackingLogic, AutoCloseable {
     public void updateStackedEntityKey(LivingEntity oldKey, LivingEntity newKey) {
         StackedEntity stackedEntity = this.stackedEntities.get(oldKey.getUniqueId());
         if (stackedEntity != null) {
-            this.stackedEntities.remove(oldKey.getUniqueId());
-            this.stackedEntities.put(newKey.getUniqueId(), stackedEntity);
+            this.untrackEntityStack(oldKey.getUniqueId());
+            this.trackEntityStack(newKey.getUniqueId(), stackedEntity);
         }
     }
 
@@ -511,7 +788,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             return null;
 
         StackedEntity newlySplit = stackedEntity.decreaseStackSize();
-        this.stackedEntities.put(newlySplit.getEntity().getUniqueId(), newlySplit);
+        this.trackEntityStack(newlySplit.getEntity().getUniqueId(), newlySplit);
         this.tryStackEntity(newlySplit);
         return newlySplit;
     }
@@ -534,7 +811,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         newItem.setPickupDelay(0);
 
         StackedItem newStackedItem = new StackedItem(newSize, newItem);
-        this.stackedItems.put(newItem.getUniqueId(), newStackedItem);
+        this.trackItemStack(newItem.getUniqueId(), newStackedItem);
         stackedItem.increaseStackSize(-newSize, true);
         return newStackedItem;
     }
@@ -548,7 +825,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             return null;
 
         StackedEntity newStackedEntity = new StackedEntity(livingEntity);
-        this.stackedEntities.put(livingEntity.getUniqueId(), newStackedEntity);
+        this.trackEntityStack(livingEntity.getUniqueId(), newStackedEntity);
 
         if (tryStack && Setting.ENTITY_INSTANT_STACK.getBoolean()) {
             livingEntity.setMetadata(NEW_METADATA, new FixedMetadataValue(this.rosePlugin, true));
@@ -569,11 +846,11 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             return null;
 
         StackedItem newStackedItem = new StackedItem(item.getItemStack().getAmount(), item);
-        this.stackedItems.put(item.getUniqueId(), newStackedItem);
+        this.trackItemStack(item.getUniqueId(), newStackedItem);
 
         if (tryStack) {
             item.setMetadata(NEW_METADATA, new FixedMetadataValue(this.rosePlugin, true));
-            this.tryStackItem(newStackedItem);
+            this.tryStackItem(newStackedItem, null);
             item.removeMetadata(NEW_METADATA, this.rosePlugin);
         }
 
@@ -587,13 +864,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         StackedBlock newStackedBlock = new StackedBlock(amount, block);
 
-        StackChunkData stackChunkData = this.stackChunkData.get(block.getChunk());
-        if (stackChunkData == null) {
-            stackChunkData = new StackChunkData(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
-            this.stackChunkData.put(block.getChunk(), stackChunkData);
-        }
-
-        stackChunkData.addBlock(newStackedBlock);
+        this.getOrCreateChunkData(block).addBlock(newStackedBlock);
         return newStackedBlock;
     }
 
@@ -608,13 +879,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
         StackedSpawner newStackedSpawner = new StackedSpawner(amount, block, placedByPlayer);
 
-        StackChunkData stackChunkData = this.stackChunkData.get(block.getChunk());
-        if (stackChunkData == null) {
-            stackChunkData = new StackChunkData(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
-            this.stackChunkData.put(block.getChunk(), stackChunkData);
-        }
-
-        stackChunkData.addSpawner(newStackedSpawner);
+        this.getOrCreateChunkData(block).addSpawner(newStackedSpawner);
         return newStackedSpawner;
     }
 
@@ -623,7 +888,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!this.stackManager.isEntityStackingEnabled() || NPCsHook.isNPC(stackedEntity.getEntity()))
             return;
 
-        this.stackedEntities.put(stackedEntity.getEntity().getUniqueId(), stackedEntity);
+        this.trackEntityStack(stackedEntity.getEntity().getUniqueId(), stackedEntity);
 
         if (Setting.ENTITY_INSTANT_STACK.getBoolean())
             this.tryStackEntity(stackedEntity);
@@ -634,8 +899,8 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!this.stackManager.isItemStackingEnabled())
             return;
 
-        this.stackedItems.put(stackedItem.getItem().getUniqueId(), stackedItem);
-        this.tryStackItem(stackedItem);
+        this.trackItemStack(stackedItem.getItem().getUniqueId(), stackedItem);
+        this.tryStackItem(stackedItem, null);
     }
 
     @Override
@@ -649,13 +914,12 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             NMSHandler nmsHandler = NMSAdapter.getHandler();
             boolean removeAi = stackSettings.isMobAIDisabled();
 
-            Collection<Entity> nearbyEntities = this.entityCacheManager.getNearbyEntities(location, stackSettings.getMergeRadius(), x -> x.getType() == entityType);
             Set<StackedEntity> nearbyStackedEntities = new HashSet<>();
-            for (Entity entity : nearbyEntities) {
+            this.entityCacheManager.forEachNearbyEntity(location, stackSettings.getMergeRadius(), entityType, entity -> {
                 StackedEntity stackedEntity = this.stackManager.getStackedEntity((LivingEntity) entity);
                 if (stackedEntity != null)
                     nearbyStackedEntities.add(stackedEntity);
-            }
+            });
 
             Set<StackedEntity> updatedEntities = new HashSet<>();
             Set<StackedEntity> newStackedEntities = new HashSet<>();
@@ -695,7 +959,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
             updatedEntities.forEach(StackedEntity::updateDisplay);
 
-            ThreadUtils.runSync(() -> {
+            this.commitQueue.submit(() -> {
                 this.stackManager.setEntityStackingTemporarilyDisabled(true);
                 for (StackedEntity stackedEntity : newStackedEntities) {
                     LivingEntity entity = stackedEntity.getEntity();
@@ -813,18 +1077,21 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (!chunk.isLoaded())
             return;
 
-        Map<Block, StackedSpawner> stackedSpawners = new ConcurrentHashMap<>();
-        if (this.stackManager.isSpawnerStackingEnabled())
-            for (StackedSpawner stackedSpawner : DataUtils.readStackedSpawners(chunk))
-                stackedSpawners.put(stackedSpawner.getBlock(), stackedSpawner);
+        List<StackedSpawner> stackedSpawners = this.stackManager.isSpawnerStackingEnabled() ? DataUtils.readStackedSpawners(chunk) : List.of();
+        List<StackedBlock> stackedBlocks = this.stackManager.isBlockStackingEnabled() ? DataUtils.readStackedBlocks(chunk) : List.of();
+        if (stackedSpawners.isEmpty() && stackedBlocks.isEmpty())
+            return;
 
-        Map<Block, StackedBlock> stackedBlocks = new ConcurrentHashMap<>();
-        if (this.stackManager.isBlockStackingEnabled())
-            for (StackedBlock stackedBlock : DataUtils.readStackedBlocks(chunk))
-                stackedBlocks.put(stackedBlock.getBlock(), stackedBlock);
+        StackChunkData stackChunkData = new StackChunkData(this.stackCounters);
+        stackedSpawners.forEach(stackChunkData::addSpawner);
+        stackedBlocks.forEach(stackChunkData::addBlock);
+        StackChunkData previous;
+        synchronized (this.stackChunkData) {
+            previous = this.stackChunkData.put(StackerUtils.getChunkKey(chunk.getX(), chunk.getZ()), stackChunkData);
+        }
 
-        if (!stackedSpawners.isEmpty() || !stackedBlocks.isEmpty())
-            this.stackChunkData.put(chunk, new StackChunkData(stackedSpawners, stackedBlocks));
+        if (previous != null)
+            previous.release();
     }
 
     @Override
@@ -839,7 +1106,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
                 StackedEntity stackedEntity = DataUtils.readStackedEntity(livingEntity, this.stackManager.getEntityDataStorageType(entity.getType()));
                 if (stackedEntity != null) {
-                    this.stackedEntities.put(stackedEntity.getEntity().getUniqueId(), stackedEntity);
+                    this.trackEntityStack(stackedEntity.getEntity().getUniqueId(), stackedEntity);
                 } else {
                     this.createEntityStack(livingEntity, true);
                 }
@@ -854,7 +1121,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
                 Item item = (Item) entity;
                 StackedItem stackedItem = DataUtils.readStackedItem(item);
                 if (stackedItem != null) {
-                    this.stackedItems.put(stackedItem.getItem().getUniqueId(), stackedItem);
+                    this.trackItemStack(stackedItem.getItem().getUniqueId(), stackedItem);
                 } else {
                     this.createItemStack(item, true);
                 }
@@ -864,24 +1131,35 @@ public class StackingThread implements StackingLogic, AutoCloseable {
 
     @Override
     public void saveChunkBlocks(Chunk chunk, boolean clearStored) {
-        StackChunkData stackChunkData = this.stackChunkData.get(chunk);
+        long chunkKey = StackerUtils.getChunkKey(chunk.getX(), chunk.getZ());
+        StackChunkData stackChunkData;
+        synchronized (this.stackChunkData) {
+            stackChunkData = this.stackChunkData.get(chunkKey);
+        }
+
         if (stackChunkData == null)
             return;
 
         if (this.stackManager.isSpawnerStackingEnabled()) {
-            DataUtils.writeStackedSpawners(stackChunkData.getSpawners().values(), chunk);
+            List<StackedSpawner> stackedSpawners = stackChunkData.getSpawners();
+            DataUtils.writeStackedSpawners(stackedSpawners, chunk);
             if (clearStored)
-                stackChunkData.getSpawners().values().stream().map(StackedSpawner::getHologramLocation).forEach(this.hologramManager::deleteHologram);
+                stackedSpawners.stream().map(StackedSpawner::getBlock).forEach(this.hologramManager::deleteHologram);
         }
 
         if (this.stackManager.isBlockStackingEnabled()) {
-            DataUtils.writeStackedBlocks(stackChunkData.getBlocks().values(), chunk);
+            List<StackedBlock> stackedBlocks = stackChunkData.getBlocks();
+            DataUtils.writeStackedBlocks(stackedBlocks, chunk);
             if (clearStored)
-                stackChunkData.getBlocks().values().stream().map(StackedBlock::getHologramLocation).forEach(this.hologramManager::deleteHologram);
+                stackedBlocks.stream().map(StackedBlock::getBlock).forEach(this.hologramManager::deleteHologram);
         }
 
-        if (clearStored)
-            this.stackChunkData.remove(chunk);
+        if (clearStored) {
+            synchronized (this.stackChunkData) {
+                this.stackChunkData.remove(chunkKey);
+            }
+            stackChunkData.release();
+        }
     }
 
     @Override
@@ -896,7 +1174,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             stackedEntities.forEach(DataUtils::writeStackedEntity);
 
             if (clearStored)
-                stackedEntities.stream().map(StackedEntity::getEntity).map(Entity::getUniqueId).forEach(this.stackedEntities::remove);
+                stackedEntities.stream().map(StackedEntity::getEntity).map(Entity::getUniqueId).forEach(this::untrackEntityStack);
         }
 
         if (this.stackManager.isItemStackingEnabled()) {
@@ -909,7 +1187,7 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             stackedItems.forEach(DataUtils::writeStackedItem);
 
             if (clearStored)
-                stackedItems.stream().map(StackedItem::getItem).map(Entity::getUniqueId).forEach(this.stackedItems::remove);
+                stackedItems.stream().map(StackedItem::getItem).map(Entity::getUniqueId).forEach(this::untrackItemStack);
         }
     }
 
@@ -932,32 +1210,32 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (this.isRemoved(entity))
             return;
 
-        if (!WorldGuardHook.testLocation(entity.getLocation()))
+        Location location = this.getLocation(entity);
+        if (!WorldGuardHook.testLocation(location))
             return;
 
-        Collection<Entity> nearbyEntities;
-        Predicate<Entity> predicate = x -> x.getType() == entity.getType();
-        if (!Setting.ENTITY_MERGE_ENTIRE_CHUNK.getBoolean()) {
-            nearbyEntities = this.entityCacheManager.getNearbyEntities(entity.getLocation(), stackSettings.getMergeRadius(), predicate);
-        } else {
-            nearbyEntities = this.entityCacheManager.getEntitiesInChunk(entity.getLocation(), predicate);
-        }
-
         Set<StackedEntity> targetEntities = new HashSet<>();
         targetEntities.add(stackedEntity);
 
-        for (Entity otherEntity : nearbyEntities) {
+        Consumer<Entity> targetCollector = otherEntity -> {
             if (entity == otherEntity || this.isRemoved(otherEntity))
-                continue;
+                return;
 
             StackedEntity other = this.stackedEntities.get(otherEntity.getUniqueId());
             if (other == null)
-                continue;
+                return;
 
             if (stackSettings.testCanStackWith(stackedEntity, other, false)
                     && (!Setting.ENTITY_REQUIRE_LINE_OF_SIGHT.getBoolean() || EntityUtils.hasLineOfSight(entity, otherEntity, 0.75, false))
-                    && WorldGuardHook.testLocation(otherEntity.getLocation()))
+                    && WorldGuardHook.testLocation(this.getLocation(otherEntity)))
                 targetEntities.add(other);
+        };
+
+        EntitySnapshot snapshot = EntitySnapshot.bound();
+        if (!Setting.ENTITY_MERGE_ENTIRE_CHUNK.getBoolean()) {
+            this.entityCacheManager.forEachNearbyEntity(location, stackSettings.getMergeRadius(), entity.getType(), snapshot, targetCollector);
+        } else {
+            this.entityCacheManager.forEachEntityInChunk(location, entity.getType(), snapshot, targetCollector);
         }
 
         StackedEntity increased;
@@ -990,6 +1268,147 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (removable.isEmpty() || totalSize < stackSettings.getMinStackSize())
             return;
 
+        this.mergeEntityStacks(stackSettings, increased, removable);
+    }
+
+    /**
+     * Stacks all StackedEntities by linking each stack with the compatible stacks around it into clusters using a
+     * union-find, then merging each cluster at once. Every nearby pair of stacks is only tested once per pass.
+     *
+     * @param fullSweep true to search around every stack, false to only search around stacks that changed since the last pass
+     */
+    private void stackEntityClusters(boolean fullSweep) {
+        List<StackedEntity> candidates = new ArrayList<>(this.stackedEntities.size());
+        Map<UUID, Integer> candidateIndexes = new HashMap<>();
+
+        // Unchanged stacks don't search around themselves but can still be linked to by stacks that did change
+        BitSet sources = new BitSet();
+        for (StackedEntity stackedEntity : this.stackedEntities.values()) {
+            LivingEntity entity = stackedEntity.getEntity();
+            if (this.isRemoved(entity) || stackedEntity.checkNPC()) {
+                this.removeEntityStack(stackedEntity);
+                continue;
+            }
+
+            if (stackedEntity.getStackSettings() == null)
+                continue;
+
+            if (this.checkDirty(this.entityPassStates, entity, stackedEntity.getStackSize()) || fullSweep)
+                sources.set(candidates.size());
+            candidateIndexes.put(entity.getUniqueId(), candidates.size());
+            candidates.add(stackedEntity);
+        }
+
+        if (candidates.size() < 2 || sources.isEmpty())
+            return;
+
+        EntitySnapshot snapshot = EntitySnapshot.bound();
+        boolean mergeEntireChunk = Setting.ENTITY_MERGE_ENTIRE_CHUNK.getBoolean();
+        boolean requireLineOfSight = Setting.ENTITY_REQUIRE_LINE_OF_SIGHT.getBoolean();
+        int[] parents = new int[candidates.size()];
+        for (int i = 0; i < parents.length; i++)
+            parents[i] = i;
+
+        for (int i = 0; i < candidates.size(); i++) {
+            if (!sources.get(i))
+                continue;
+
+            StackedEntity stackedEntity = candidates.get(i);
+            EntityStackSettings stackSettings = stackedEntity.getStackSettings();
+            LivingEntity entity = stackedEntity.getEntity();
+            Location location = this.getLocation(entity);
+            if (!WorldGuardHook.testLocation(location))
+                continue;
+
+            int index = i;
+            Consumer<Entity> linker = otherEntity -> {
+                // Pairs of searching stacks are only tested from the lower index, and skip pairs that are already linked
+                Integer otherIndex = candidateIndexes.get(otherEntity.getUniqueId());
+                if (otherIndex == null || otherIndex == index || (sources.get(otherIndex) && otherIndex < index) || findRoot(parents, index) == findRoot(parents, otherIndex))
+                    return;
+
+                StackedEntity other = candidates.get(otherIndex);
+                if (stackSettings.testCanStackWith(stackedEntity, other, false)
+                        && (!requireLineOfSight || EntityUtils.hasLineOfSight(entity, otherEntity, 0.75, false))
+                        && WorldGuardHook.testLocation(this.getLocation(otherEntity)))
+                    parents[findRoot(parents, otherIndex)] = findRoot(parents, index);
+            };
+
+            if (!mergeEntireChunk) {
+                this.entityCacheManager.forEachNearbyEntity(location, stackSettings.getMergeRadius(), entity.getType(), snapshot, linker);
+            } else {
+                this.entityCacheManager.forEachEntityInChunk(location, entity.getType(), snapshot, linker);
+            }
+        }
+
+        Map<Integer, List<StackedEntity>> clusters = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++)
+            clusters.computeIfAbsent(findRoot(parents, i), x -> new ArrayList<>()).add(candidates.get(i));
+
+        // Stacks with different signatures can never join each other, so merge each group of a cluster on its own
+        boolean onlyIndividuals = Setting.ENTITY_MIN_STACK_COUNT_ONLY_INDIVIDUALS.getBoolean();
+        for (List<StackedEntity> cluster : clusters.values()) {
+            if (cluster.size() < 2)
+                continue;
+
+            for (List<StackedEntity> group : EntityStackSettings.groupBySignature(cluster).values())
+                if (group.size() > 1)
+                    this.mergeEntityCluster(group, onlyIndividuals);
+        }
+    }
+
+    /**
+     * Merges a cluster of linked StackedEntities into as few stacks as the max stack size allows
+     *
+     * @param cluster The linked StackedEntities, will be modified
+     * @param onlyIndividuals true if only individual entities count towards the min stack size
+     */
+    private void mergeEntityCluster(List<StackedEntity> cluster, boolean onlyIndividuals) {
+        while (cluster.size() > 1) {
+            StackedEntity increased = cluster.stream().max(StackedEntity::compareTo).orElseThrow();
+            cluster.remove(increased);
+
+            EntityStackSettings stackSettings = increased.getStackSettings();
+            int totalStackSize = increased.getStackSize();
+            int totalSize = onlyIndividuals ? 1 : totalStackSize;
+            List<StackedEntity> removable = new ArrayList<>();
+            Iterator<StackedEntity> iterator = cluster.iterator();
+            while (iterator.hasNext()) {
+                StackedEntity target = iterator.next();
+                if (totalStackSize + target.getStackSize() > stackSettings.getMaxStackSize())
+                    continue;
+
+                // Clusters are linked pairwise, so make sure this stack can actually join the one being increased
+                if (!stackSettings.testCanStackWith(increased, target, false, true))
+                    continue;
+
+                totalStackSize += target.getStackSize();
+                totalSize += onlyIndividuals ? 1 : target.getStackSize();
+                removable.add(target);
+                iterator.remove();
+            }
+
+            if (!removable.isEmpty() && totalSize >= stackSettings.getMinStackSize())
+                this.mergeEntityStacks(stackSettings, increased, removable);
+        }
+    }
+
+    private static int findRoot(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * Stacks StackedEntities into another StackedEntity and removes them
+     *
+     * @param stackSettings The stack settings of the StackedEntity being increased
+     * @param increased The StackedEntity to stack into
+     * @param removable The StackedEntities to stack into the increased StackedEntity
+     */
+    private void mergeEntityStacks(EntityStackSettings stackSettings, StackedEntity increased, List<StackedEntity> removable) {
         EntityStackEvent entityStackEvent = new EntityStackEvent(removable, increased);
         Bukkit.getPluginManager().callEvent(entityStackEvent);
         if (entityStackEvent.isCancelled())
@@ -1002,20 +1421,17 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             this.removeEntityStack(toStack);
         }
 
-        Runnable removeTask = () -> removable.stream().map(StackedEntity::getEntity).forEach(Entity::remove);
-        if (Bukkit.isPrimaryThread()) {
-            removeTask.run();
-        } else {
-            ThreadUtils.runSync(removeTask);
-        }
+        this.commitQueue.commit(() -> removable.stream().map(StackedEntity::getEntity).forEach(Entity::remove));
     }
 
     /**
-     * Tries to stack a StackedItem with all other StackedItems
+     * Tries to stack an item into the similar items around it
      *
-     * @param stackedItem the StackedItem to try to stack
+     * @param stackedItem The item to stack
+     * @param snapshot The snapshot of the current pass to find nearby items through the item chunk index with, or null to
+     *                 look up nearby items from the entity cache
      */
-    private void tryStackItem(StackedItem stackedItem) {
+    private void tryStackItem(StackedItem stackedItem, EntitySnapshot snapshot) {
         ItemStackSettings stackSettings = stackedItem.getStackSettings();
         if (stackSettings == null
                 || !stackSettings.isStackingEnabled()
@@ -1026,26 +1442,42 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         if (this.isRemoved(item))
             return;
 
-        Predicate<Entity> predicate = x -> x.getType() == EntityType.DROPPED_ITEM;
-        Set<Item> nearbyItems = this.entityCacheManager.getNearbyEntities(stackedItem.getLocation(), Setting.ITEM_MERGE_RADIUS.getDouble(), predicate)
-                .stream()
-                .map(x -> (Item) x)
-                .collect(Collectors.toSet());
-
+        ItemSimilarityKey similarityKey = stackedItem.getSimilarityKey();
         Set<StackedItem> targetItems = new HashSet<>();
-        for (Item otherItem : nearbyItems) {
-            if (item == otherItem || otherItem.getPickupDelay() > 40 || !item.getItemStack().isSimilar(otherItem.getItemStack()) || this.isRemoved(otherItem))
-                continue;
+        if (snapshot != null) {
+            this.forEachNearbySimilarItem(similarityKey, this.getLocation(item), Setting.ITEM_MERGE_RADIUS.getDouble(), snapshot, other -> {
+                Item otherItem = other.getItem();
+                if (other == stackedItem || otherItem.getPickupDelay() > 40 || this.isRemoved(otherItem) || this.stackedItems.get(otherItem.getUniqueId()) != other)
+                    return;
 
-            StackedItem other = this.stackedItems.get(otherItem.getUniqueId());
-            if (other != null)
                 targetItems.add(other);
+            });
+        } else {
+            this.entityCacheManager.forEachNearbyEntity(this.getLocation(item), Setting.ITEM_MERGE_RADIUS.getDouble(), EntityType.DROPPED_ITEM, EntitySnapshot.bound(), entity -> {
+                Item otherItem = (Item) entity;
+                if (item == otherItem || otherItem.getPickupDelay() > 40 || this.isRemoved(otherItem))
+                    return;
+
+                StackedItem other = this.stackedItems.get(otherItem.getUniqueId());
+                if (other != null && similarityKey.equals(other.getSimilarityKey()))
+                    targetItems.add(other);
+            });
         }
 
         int totalSize = stackedItem.getStackSize();
         Set<StackedItem> removable = new HashSet<>();
+        ItemStack itemStack = null;
         for (StackedItem target : targetItems) {
             if (totalSize + target.getStackSize() <= stackSettings.getMaxStackSize()) {
+                // The similarity keys are cached, make sure the live items still match before merging them
+                if (itemStack == null)
+                    itemStack = item.getItemStack();
+                if (!itemStack.isSimilar(target.getItem().getItemStack())) {
+                    stackedItem.refreshSimilarityKey();
+                    target.refreshSimilarityKey();
+                    continue;
+                }
+
                 totalSize += target.getStackSize();
                 removable.add(target);
             }
@@ -1070,45 +1502,373 @@ public class StackingThread implements StackingLogic, AutoCloseable {
             increased.getItem().setPickupDelay(Math.max(increased.getItem().getPickupDelay(), removed.getItem().getPickupDelay()));
             removed.getItem().setPickupDelay(100); // Don't allow the item we just merged to get picked up or stacked
 
-            Runnable removeTask = () -> removed.getItem().remove();
-            if (Bukkit.isPrimaryThread()) {
-                removeTask.run();
-            } else {
-                ThreadUtils.runSync(removeTask);
-            }
+            this.commitQueue.commit(() -> removed.getItem().remove());
 
             this.removeItemStack(removed);
         }
     }
 
+    /**
+     * Runs an action for each stacked item with a similarity key within a box around a position. Only the chunks
+     * overlapping the box are visited through the item chunk index, and positions are read from a snapshot.
+     *
+     * @param key The similarity key to look for
+     * @param center The center of the area to check
+     * @param radius The radius to check around
+     * @param snapshot The snapshot to read item positions from
+     * @param action The action to run for each matching item
+     */
+    private void forEachNearbySimilarItem(ItemSimilarityKey key, Location center, double radius, EntitySnapshot snapshot, Consumer<StackedItem> action) {
+        double minX = center.getX() - radius, maxX = center.getX() + radius;
+        double minY = center.getY() - radius, maxY = center.getY() + radius;
+        double minZ = center.getZ() - radius, maxZ = center.getZ() + radius;
+
+        // Collect the matches first so the action doesn't run while the index is locked
+        List<StackedItem> matches = new ArrayList<>();
+        Consumer<StackedItem> matcher = stackedItem -> {
+            if (!key.equals(stackedItem.getSimilarityKey()))
+                return;
+
+            int index = snapshot.indexOf(stackedItem.getItem());
+            if (index == EntitySnapshot.NOT_FOUND)
+                return;
+
+            double x = snapshot.getX(index);
+            double y = snapshot.getY(index);
+            double z = snapshot.getZ(index);
+            if (x >= minX && x < maxX && y >= minY && y < maxY && z >= minZ && z < maxZ)
+                matches.add(stackedItem);
+        };
+
+        for (int chunkX = Location.locToBlock(minX) >> 4, maxChunkX = Location.locToBlock(maxX) >> 4; chunkX <= maxChunkX; chunkX++)
+            for (int chunkZ = Location.locToBlock(minZ) >> 4, maxChunkZ = Location.locToBlock(maxZ) >> 4; chunkZ <= maxChunkZ; chunkZ++)
+                this.itemChunkIndex.forEach(chunkX, chunkZ, matcher);
+
+        matches.forEach(action);
+    }
+
     public void transferExistingEntityStack(UUID entityUUID, StackedEntity stackedEntity, StackingThread toThread) {
-        this.stackedEntities.remove(entityUUID);
+        this.untrackEntityStack(entityUUID);
         toThread.loadExistingEntityStack(entityUUID, stackedEntity);
     }
 
     public void transferExistingEntityStack(UUID entityUUID, StackedItem stackedItem, StackingThread toThread) {
-        this.stackedEntities.remove(entityUUID);
+        this.untrackItemStack(entityUUID);
         toThread.loadExistingItemStack(entityUUID, stackedItem);
     }
 
     private void loadExistingEntityStack(UUID entityUUID, StackedEntity stackedEntity) {
         stackedEntity.updateEntity();
-        this.stackedEntities.put(entityUUID, stackedEntity);
+        this.trackEntityStack(entityUUID, stackedEntity);
     }
 
     private void loadExistingItemStack(UUID entityUUID, StackedItem stackedItem) {
         stackedItem.updateItem();
-        this.stackedItems.put(entityUUID, stackedItem);
+        this.trackItemStack(entityUUID, stackedItem);
+    }
+
+    /**
+     * Runs a stacking action for every stack in a set of regions on the stacking pool, one phase at a time.
+     * Every stack is visited, the time budget is applied by the caller when deciding how many stacks to shard.
+     *
+     * @param pool The pool to run the regions on
+     * @param shards The regions of stacks to process
+     * @param stacker The action to run for each stack
+     * @param <T> The stack type
+     */
+    private <T> void runSharded(ForkJoinPool pool, RegionShards<T> shards, Consumer<T> stacker) {
+        EntitySnapshot snapshot = EntitySnapshot.bound();
+        for (int phase = 0; phase < RegionShards.PHASES; phase++) {
+            List<List<T>> regions = shards.getRegions(phase);
+            if (regions.isEmpty())
+                continue;
+
+            List<Callable<Void>> tasks = new ArrayList<>(regions.size());
+            for (List<T> region : regions) {
+                tasks.add(() -> {
+                    EntitySnapshot.bind(snapshot);
+                    try {
+                        for (T stack : region)
+                            stacker.accept(stack);
+                    } finally {
+                        EntitySnapshot.unbind();
+                    }
+                    return null;
+                });
+            }
+
+            // The next phase may touch stacks along the borders of this one, so wait for every region to finish first
+            try {
+                for (Future<Void> future : pool.invokeAll(tasks))
+                    future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return; // The pool was shut down while the plugin is disabling
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to stack region", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @return the furthest distance in blocks an entity stack can merge with another entity stack from
+     */
+    private double getEntityReach() {
+        // Merging the entire chunk never crosses a chunk border, and regions always contain whole chunks
+        if (Setting.ENTITY_MERGE_ENTIRE_CHUNK.getBoolean())
+            return 0;
+
+        StackSettingManager stackSettingManager = this.rosePlugin.getManager(StackSettingManager.class);
+        double reach = 0;
+        for (EntityType entityType : StackerUtils.getStackableEntityTypes()) {
+            EntityStackSettings stackSettings = stackSettingManager.getEntityStackSettings(entityType);
+            if (stackSettings != null)
+                reach = Math.max(reach, stackSettings.getMergeRadius());
+        }
+        return reach;
+    }
+
+    /**
+     * Checks if a pass should process every stack instead of only the ones that changed.
+     * Pass states of stacks that no longer exist are cleaned up during full sweeps.
+     *
+     * @param passStates The pass states for the type of stack
+     * @param stackKeys The keys of all current stacks of the type
+     * @param entities true if this is for the entity pass, false for the item pass
+     * @return true if all stacks should be processed
+     */
+    private boolean checkFullSweep(Map<UUID, PassState> passStates, Set<UUID> stackKeys, boolean entities) {
+        if (!this.dirtyStacking)
+            return true;
+
+        int counter = entities ? ++this.entitySweepCounter : ++this.itemSweepCounter;
+        if (counter < this.fullSweepInterval)
+            return false;
+
+        if (entities) {
+            this.entitySweepCounter = 0;
+        } else {
+            this.itemSweepCounter = 0;
+        }
+
+        passStates.keySet().retainAll(stackKeys);
+        return true;
+    }
+
+    /**
+     * Checks if a stack is new, has moved past the threshold, or has changed size since the last pass that
+     * processed it, and records its current state if so
+     *
+     * @param passStates The pass states for the type of stack
+     * @param entity The entity of the stack
+     * @param stackSize The current size of the stack
+     * @return true if the stack should be processed by this pass
+     */
+    private boolean checkDirty(Map<UUID, PassState> passStates, Entity entity, int stackSize) {
+        if (!this.dirtyStacking)
+            return true;
+
+        // Anything that hasn't made it into the snapshot yet is brand new
+        EntitySnapshot snapshot = EntitySnapshot.bound();
+        int index = snapshot == null ? EntitySnapshot.NOT_FOUND : snapshot.indexOf(entity);
+        if (index == EntitySnapshot.NOT_FOUND)
+            return true;
+
+        double x = snapshot.getX(index), y = snapshot.getY(index), z = snapshot.getZ(index);
+        PassState state = passStates.get(entity.getUniqueId());
+        if (state == null) {
+            state = new PassState();
+            passStates.put(entity.getUniqueId(), state);
+        } else {
+            double dx = x - state.x, dy = y - state.y, dz = z - state.z;
+            if (state.size == stackSize && dx * dx + dy * dy + dz * dz < this.dirtyMoveThresholdSqrd)
+                return false;
+        }
+
+        state.x = x;
+        state.y = y;
+        state.z = z;
+        state.size = stackSize;
+        return true;
+    }
+
+    /**
+     * Gets the location of an entity from the bound snapshot if it was captured, otherwise from the live entity
+     *
+     * @param entity The entity to get the location of
+     * @return the location of the entity
+     */
+    private Location getLocation(Entity entity) {
+        EntitySnapshot snapshot = EntitySnapshot.bound();
+        int index = snapshot == null ? EntitySnapshot.NOT_FOUND : snapshot.indexOf(entity);
+        return index == EntitySnapshot.NOT_FOUND ? entity.getLocation() : snapshot.toLocation(index, this.targetWorld);
     }
 
     private boolean isRemoved(Entity entity) {
-        return entity == null || (!entity.isValid() && !entity.hasMetadata(NEW_METADATA)) || REMOVED_ENTITIES.getIfPresent(entity.getUniqueId()) != null;
+        return entity == null || (!EntitySnapshot.isValid(entity) && !entity.hasMetadata(NEW_METADATA)) || REMOVED_ENTITIES.getIfPresent(entity.getUniqueId()) != null;
     }
 
     private void setRemoved(Entity entity) {
         REMOVED_ENTITIES.put(entity.getUniqueId(), true);
     }
 
+    /**
+     * @return the cursor of the entity stacking pass, used to see how many runs it takes to sweep all entity stacks
+     */
+    public StackingCursor getEntityStackCursor() {
+        return this.entityStackCursor;
+    }
+
+    /**
+     * @return the cursor of the item stacking pass, used to see how many runs it takes to sweep all item stacks
+     */
+    public StackingCursor getItemStackCursor() {
+        return this.itemStackCursor;
+    }
+
+    /**
+     * @return the queue of changes waiting to be applied to this world on the main thread
+     */
+    public CommitQueue getCommitQueue() {
+        return this.commitQueue;
+    }
+
+    /**
+     * Queues an entity or item to be stacked on the next stacking pass if it isn't stacked by then.
+     * Used for entities that were added to the world without being stacked right away.
+     *
+     * @param uuid The UUID of the entity or item
+     */
+    public void queueRegistration(UUID uuid) {
+        this.pendingRegistrations.add(uuid);
+    }
+
+    /**
+     * @return the number of entities and items waiting to be checked for a stack
+     */
+    public int getPendingRegistrations() {
+        return this.pendingRegistrations.size();
+    }
+
+    /**
+     * @return the number of unstacked entities and items found by the last audit of the world
+     */
+    public int getLastAuditFound() {
+        return this.lastAuditFound;
+    }
+
+    /**
+     * @return the total number of unstacked entities and items found by audits of the world
+     */
+    public long getTotalAuditFound() {
+        return this.totalAuditFound;
+    }
+
+    /**
+     * @return the number of spawner hologram refreshes skipped by the last hologram update because nobody was watching
+     */
+    public int getLastSkippedHologramRefreshes() {
+        return this.lastSkippedHologramRefreshes;
+    }
+
+    /**
+     * @return the total number of spawner hologram refreshes skipped because nobody was watching
+     */
+    public long getTotalSkippedHologramRefreshes() {
+        return this.totalSkippedHologramRefreshes;
+    }
+
+    /**
+     * Gets the StackedEntities in a chunk, as of the last tick
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return a copy of the StackedEntities in the chunk
+     */
+    public List<StackedEntity> getStackedEntities(int chunkX, int chunkZ) {
+        return this.entityChunkIndex.get(chunkX, chunkZ);
+    }
+
+    /**
+     * Gets the StackedItems in a chunk, as of the last tick
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return a copy of the StackedItems in the chunk
+     */
+    public List<StackedItem> getStackedItems(int chunkX, int chunkZ) {
+        return this.itemChunkIndex.get(chunkX, chunkZ);
+    }
+
+    /**
+     * @return the live counts of the stacks in this world
+     */
+    public StackCounters getStackCounters() {
+        return this.stackCounters;
+    }
+
+    private void trackEntityStack(UUID key, StackedEntity stackedEntity) {
+        StackedEntity previous = this.stackedEntities.put(key, stackedEntity);
+        if (previous != null && previous != stackedEntity)
+            this.releaseEntityStack(previous);
+        stackedEntity.setCounters(this.stackCounters);
+        this.entityChunkIndex.add(stackedEntity);
+    }
+
+    private void untrackEntityStack(UUID key) {
+        StackedEntity removed = this.stackedEntities.remove(key);
+        if (removed != null)
+            this.releaseEntityStack(removed);
+    }
+
+    private void releaseEntityStack(StackedEntity stackedEntity) {
+        stackedEntity.setCounters(null);
+        this.entityChunkIndex.remove(stackedEntity);
+    }
+
+    private void trackItemStack(UUID key, StackedItem stackedItem) {
+        StackedItem previous = this.stackedItems.put(key, stackedItem);
+        if (previous != null && previous != stackedItem)
+            this.releaseItemStack(previous);
+        stackedItem.setCounters(this.stackCounters);
+        this.itemChunkIndex.add(stackedItem);
+    }
+
+    private void untrackItemStack(UUID key) {
+        StackedItem removed = this.stackedItems.remove(key);
+        if (removed != null)
+            this.releaseItemStack(removed);
+    }
+
+    private void releaseItemStack(StackedItem stackedItem) {
+        stackedItem.setCounters(null);
+        this.itemChunkIndex.remove(stackedItem);
+    }
+
+    private StackChunkData getChunkData(Block block) {
+        long chunkKey = StackerUtils.getChunkKey(block.getX() >> 4, block.getZ() >> 4);
+        synchronized (this.stackChunkData) {
+            return this.stackChunkData.get(chunkKey);
+        }
+    }
+
+    private StackChunkData getOrCreateChunkData(Block block) {
+        long chunkKey = StackerUtils.getChunkKey(block.getX() >> 4, block.getZ() >> 4);
+        synchronized (this.stackChunkData) {
+            return this.stackChunkData.computeIfAbsent(chunkKey, x -> new StackChunkData(this.stackCounters));
+        }
+    }
+
+    private List<StackChunkData> getAllChunkData() {
+        synchronized (this.stackChunkData) {
+            List<StackChunkData> chunkData = new ArrayList<>(this.stackChunkData.size());
+            this.stackChunkData.forEachValue(chunkData::add);
+            return chunkData;
+        }
+    }
+
     /**
      * @return the world that this StackingThread is acting on
      */
@@ -1116,4 +1876,14 @@ public class StackingThread implements StackingLogic, AutoCloseable {
         return this.targetWorld;
     }
 
+    /**
+     * The state of a stack as of the last stacking pass that processed it
+     */
+    private static class PassState {
+
+        private double x, y, z;
+        private int size;
+
+    }
+
 }
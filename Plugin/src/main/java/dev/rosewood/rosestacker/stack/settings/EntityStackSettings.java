@@ -13,10 +13,13 @@ import dev.rosewood.rosestacker.nms.storage.StackedEntityDataStorageType;
 import dev.rosewood.rosestacker.stack.EntityStackComparisonResult;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.settings.conditions.entity.StackConditions;
+import dev.rosewood.rosestacker.stack.settings.conditions.entity.StackSignature;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import dev.rosewood.rosestacker.utils.StackerUtils;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
@@ -58,6 +61,8 @@ public class EntityStackSettings extends StackSettings {
 
     // Conditions and settings loaded specifically for this entity type
     private final List<StackConditionEntry<?>> stackConditions;
+    private final List<StackConditionEntry<?>> signatureConditions, compiledConditions;
+    private final long signatureCacheDuration;
     private final Map<String, EntitySetting> extraSettings;
 
     // Settings that apply to every entity
@@ -132,6 +137,14 @@ public class EntityStackSettings extends StackSettings {
 
         this.stackConditions.forEach(StackConditionEntry::load);
         this.extraSettings.values().forEach(EntitySetting::load);
+
+        // Split out the conditions that only compare rarely changing attributes so they can be checked with a signature.
+        // Conditions that can't apply to this entity type are dropped and the rest are ordered cheapest first, this
+        // changes which failure reason is found first so only the boolean tests use them.
+        Comparator<StackConditionEntry<?>> byCost = Comparator.comparingInt(x -> x.condition.cost());
+        this.signatureConditions = this.stackConditions.stream().filter(x -> x.enabled && x.condition.isSignature()).collect(Collectors.toList());
+        this.compiledConditions = this.stackConditions.stream().filter(x -> x.enabled).sorted(byCost).collect(Collectors.toList());
+        this.signatureCacheDuration = Setting.PERFORMANCE_STACK_SIGNATURE_CACHE_DURATION.getLong();
     }
 
     private void putSetting(String key, Object defaultValue) {
@@ -183,7 +196,27 @@ public class EntityStackSettings extends StackSettings {
      * @return true if the two entities can stack into each other, false otherwise
      */
     public boolean testCanStackWith(StackedEntity stack1, StackedEntity stack2, boolean comparingForUnstack, boolean ignorePositions) {
-        return this.canStackWith(stack1, stack2, comparingForUnstack, ignorePositions) == EntityStackComparisonResult.CAN_STACK;
+        if (!this.enabled)
+            return false;
+
+        // Reject on a signature mismatch without running any conditions. A match isn't trusted since a cached signature
+        // may be stale for attributes that change without the stack's version changing, such as a baby growing up.
+        if (stack1 != stack2 && stack1.getStackSettings() == this && stack2.getStackSettings() == this && this.signatureCacheDuration > 0
+                && !stack1.getSignature().equals(stack2.getSignature()))
+            return false;
+
+        return this.testConditions(this.compiledConditions, stack1, stack2, comparingForUnstack, ignorePositions);
+    }
+
+    private boolean testConditions(List<StackConditionEntry<?>> conditions, StackedEntity stack1, StackedEntity stack2, boolean comparingForUnstack, boolean ignorePositions) {
+        LivingEntity entity1 = stack1.getEntity();
+        LivingEntity entity2 = stack2.getEntity();
+
+        for (int i = 0, size = conditions.size(); i < size; i++)
+            if (conditions.get(i).test(this, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) != EntityStackComparisonResult.CAN_STACK)
+                return false;
+
+        return true;
     }
 
     /**
@@ -196,10 +229,14 @@ public class EntityStackSettings extends StackSettings {
      * @return the comparison result
      */
     public EntityStackComparisonResult canStackWith(StackedEntity stack1, StackedEntity stack2, boolean comparingForUnstack, boolean ignorePositions) {
+        return this.runConditions(this.stackConditions, stack1, stack2, comparingForUnstack, ignorePositions);
+    }
+
+    private EntityStackComparisonResult runConditions(List<StackConditionEntry<?>> conditions, StackedEntity stack1, StackedEntity stack2, boolean comparingForUnstack, boolean ignorePositions) {
         LivingEntity entity1 = stack1.getEntity();
         LivingEntity entity2 = stack2.getEntity();
 
-        for (StackConditionEntry<?> stackCondition : this.stackConditions) {
+        for (StackConditionEntry<?> stackCondition : conditions) {
             EntityStackComparisonResult result = stackCondition.apply(this, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions);
             if (result != EntityStackComparisonResult.CAN_STACK)
                 return result;
@@ -208,6 +245,42 @@ public class EntityStackSettings extends StackSettings {
         return EntityStackComparisonResult.CAN_STACK;
     }
 
+    /**
+     * Creates the signature of an entity from the enabled signature conditions of this entity type.
+     * Use {@link StackedEntity#getSignature()} to get the cached signature of a stack instead.
+     *
+     * @param entity The entity to create the signature of, must be of this entity type
+     * @return a new signature
+     */
+    public StackSignature createSignature(LivingEntity entity) {
+        Object[] values = new Object[this.signatureConditions.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = this.signatureConditions.get(i).getSignatureValue(entity);
+        return new StackSignature(this.entityType, values);
+    }
+
+    /**
+     * @return how long signatures of this entity type are cached for in ticks, signatures aren't used if 0 or less
+     */
+    public long getSignatureCacheDuration() {
+        return this.signatureCacheDuration;
+    }
+
+    /**
+     * Groups stacks by their signature. Stacks in different groups can never stack together, stacks in the same group
+     * can stack together as long as they pass the remaining positional and dynamic conditions.
+     *
+     * @param stacks The stacks to group
+     * @return a map of signatures to the stacks that have them
+     */
+    public static Map<StackSignature, List<StackedEntity>> groupBySignature(Collection<StackedEntity> stacks) {
+        Map<StackSignature, List<StackedEntity>> groups = new HashMap<>();
+        for (StackedEntity stack : stacks)
+            if (stack.getStackSettings() != null)
+                groups.computeIfAbsent(stack.getSignature(), x -> new ArrayList<>()).add(stack);
+        return groups;
+    }
+
     @Override
     public String getConfigurationSectionKey() {
         return this.entityType.name();
@@ -371,9 +444,19 @@ public class EntityStackSettings extends StackSettings {
                                                  boolean ignorePositions) {
             if (!this.enabled)
                 return EntityStackComparisonResult.CAN_STACK;
+            return this.test(stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions);
+        }
+
+        public EntityStackComparisonResult test(EntityStackSettings stackSettings, StackedEntity stack1,
+                                                StackedEntity stack2, Entity entity1, Entity entity2, boolean comparingForUnstack,
+                                                boolean ignorePositions) {
             return this.condition.function().apply(stackSettings, stack1, stack2, (T) entity1, (T) entity2, comparingForUnstack, ignorePositions);
         }
 
+        public Object getSignatureValue(Entity entity) {
+            return this.condition.signatureAttribute().apply((T) entity);
+        }
+
         public void setDefaults() {
             StackConditions.ConfigProperties configProperties = this.condition.configProperties();
             if (configProperties != null)
@@ -384,6 +467,10 @@ public class EntityStackSettings extends StackSettings {
             StackConditions.ConfigProperties configProperties = this.condition.configProperties();
             if (configProperties != null)
                 this.enabled = EntityStackSettings.this.settingsConfiguration.getBoolean(configProperties.key(), configProperties.defaultValue());
+
+            // Resolve settings that decide if the condition applies now rather than every time it's run
+            if (this.enabled)
+                this.enabled = this.condition.applicable().test(EntityStackSettings.this);
         }
 
     }
@@ -6,11 +6,15 @@ import dev.rosewood.rosegarden.utils.NMSUtil;
 import dev.rosewood.rosestacker.manager.ConfigurationManager.Setting;
 import dev.rosewood.rosestacker.nms.NMSAdapter;
 import dev.rosewood.rosestacker.nms.NMSHandler;
+import dev.rosewood.rosestacker.stack.EntitySnapshot;
 import dev.rosewood.rosestacker.stack.EntityStackComparisonResult;
 import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.settings.EntityStackSettings;
 import dev.rosewood.rosestacker.utils.PersistentDataUtils;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.bukkit.Material;
 import org.bukkit.entity.AbstractHorse;
 import org.bukkit.entity.Ageable;
@@ -68,6 +72,14 @@ import org.bukkit.material.Colorable;
 
 public final class StackConditions {
 
+    /**
+     * Rough relative costs of evaluating a condition, conditions are evaluated cheapest first when testing if two stacks can stack
+     */
+    public static final int COST_TRIVIAL = 0; // Comparing values already held by the stack
+    public static final int COST_CHEAP = 1; // Reading a field of the entity
+    public static final int COST_LOOKUP = 2; // Reading persistent data, equipment, or NMS state
+    public static final int COST_WORLD = 3; // Reading blocks from the world
+
     private static final Multimap<Class<?>, StackCondition<?>> CLASS_STACK_EVALUATION_MAP;
     private static final NMSHandler NMS_HANDLER = NMSAdapter.getHandler();
 
@@ -75,7 +87,7 @@ public final class StackConditions {
         CLASS_STACK_EVALUATION_MAP = MultimapBuilder.hashKeys().arrayListValues().build();
 
         // Register base Entity conditions
-        register(Entity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+        register(Entity.class, COST_TRIVIAL, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             int offset = comparingForUnstack ? -1 : 0;
             if (entity1 == entity2) {
                 if (stack1.getStackSize() + 1 + offset > stackSettings.getMaxStackSize())
@@ -91,70 +103,92 @@ public final class StackConditions {
             if (!stackSettings.isStackingEnabled())
                 return EntityStackComparisonResult.STACKING_NOT_ENABLED;
 
+            return EntityStackComparisonResult.CAN_STACK;
+        });
+
+        register(Entity.class, COST_LOOKUP, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
             if (PersistentDataUtils.isUnstackable(entity1) || PersistentDataUtils.isUnstackable(entity2))
                 return EntityStackComparisonResult.MARKED_UNSTACKABLE;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            if (Setting.ENTITY_DONT_STACK_CUSTOM_NAMED.getBoolean() && (entity1.getCustomName() != null || entity2.getCustomName() != null)
+        register(Entity.class, COST_CHEAP, stackSettings -> Setting.ENTITY_DONT_STACK_CUSTOM_NAMED.getBoolean(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if ((entity1.getCustomName() != null || entity2.getCustomName() != null)
                     && entity1.getType() != EntityType.SNOWMAN) // Force named snow golems to always stack together for infinite snowball lag-prevention reasons
                 return EntityStackComparisonResult.CUSTOM_NAMED;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            if (!comparingForUnstack && !ignorePositions && !stackSettings.getEntityTypeData().swimmingMob() && !stackSettings.getEntityTypeData().flyingMob()) {
-                if (Setting.ENTITY_ONLY_STACK_ON_GROUND.getBoolean() && (!entity1.isOnGround() || !entity2.isOnGround()))
-                    return EntityStackComparisonResult.NOT_ON_GROUND;
+        register(Entity.class, COST_CHEAP, stackSettings -> Setting.ENTITY_ONLY_STACK_ON_GROUND.getBoolean() && !stackSettings.getEntityTypeData().swimmingMob() && !stackSettings.getEntityTypeData().flyingMob(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (!comparingForUnstack && !ignorePositions && (!EntitySnapshot.isOnGround(entity1) || !EntitySnapshot.isOnGround(entity2)))
+                return EntityStackComparisonResult.NOT_ON_GROUND;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-                if (Setting.ENTITY_DONT_STACK_IF_IN_WATER.getBoolean() &&
-                        (entity1.getLocation().getBlock().getType() == Material.WATER || entity2.getLocation().getBlock().getType() == Material.WATER))
-                    return EntityStackComparisonResult.IN_WATER;
-            }
+        register(Entity.class, COST_WORLD, stackSettings -> Setting.ENTITY_DONT_STACK_IF_IN_WATER.getBoolean() && !stackSettings.getEntityTypeData().swimmingMob() && !stackSettings.getEntityTypeData().flyingMob(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (!comparingForUnstack && !ignorePositions
+                    && (entity1.getLocation().getBlock().getType() == Material.WATER || entity2.getLocation().getBlock().getType() == Material.WATER))
+                return EntityStackComparisonResult.IN_WATER;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            if (!comparingForUnstack && stackSettings.shouldOnlyStackFromSpawners() &&
-                    (!PersistentDataUtils.isSpawnedFromSpawner(entity1) || !PersistentDataUtils.isSpawnedFromSpawner(entity2)))
+        register(Entity.class, COST_LOOKUP, EntityStackSettings::shouldOnlyStackFromSpawners, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (!comparingForUnstack && (!PersistentDataUtils.isSpawnedFromSpawner(entity1) || !PersistentDataUtils.isSpawnedFromSpawner(entity2)))
                 return EntityStackComparisonResult.NOT_SPAWNED_FROM_SPAWNER;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            // Don't stack if being ridden or is riding something
-            if (!comparingForUnstack && (!entity1.getPassengers().isEmpty() || !entity2.getPassengers().isEmpty() || entity1.isInsideVehicle() || entity2.isInsideVehicle()))
+        // Don't stack if being ridden or is riding something
+        register(Entity.class, COST_CHEAP, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (!comparingForUnstack && (EntitySnapshot.isPartOfVehicle(entity1) || EntitySnapshot.isPartOfVehicle(entity2)))
                 return EntityStackComparisonResult.PART_OF_VEHICLE; // If comparing for unstack and is being ridden or is riding something, don't want to unstack it
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            if (Setting.ENTITY_DONT_STACK_IF_INVULNERABLE.getBoolean() && (entity1.isInvulnerable() || entity2.isInvulnerable()))
+        register(Entity.class, COST_CHEAP, stackSettings -> Setting.ENTITY_DONT_STACK_IF_INVULNERABLE.getBoolean(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (entity1.isInvulnerable() || entity2.isInvulnerable())
                 return EntityStackComparisonResult.INVULNERABLE;
-
             return EntityStackComparisonResult.CAN_STACK;
         });
 
         // Register base LivingEntity conditions
-        register(LivingEntity.class, (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
-            if (!comparingForUnstack && Setting.ENTITY_DONT_STACK_IF_LEASHED.getBoolean() && (entity1.isLeashed() || entity2.isLeashed()))
+        register(LivingEntity.class, COST_CHEAP, stackSettings -> Setting.ENTITY_DONT_STACK_IF_LEASHED.getBoolean(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (!comparingForUnstack && (entity1.isLeashed() || entity2.isLeashed()))
                 return EntityStackComparisonResult.LEASHED;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
-            if (Setting.ENTITY_DONT_STACK_IF_HAS_EQUIPMENT.getBoolean()) {
-                EntityEquipment equipment1 = entity1.getEquipment();
-                EntityEquipment equipment2 = entity2.getEquipment();
+        register(LivingEntity.class, COST_LOOKUP, stackSettings -> Setting.ENTITY_DONT_STACK_IF_HAS_EQUIPMENT.getBoolean(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            EntityEquipment equipment1 = entity1.getEquipment();
+            EntityEquipment equipment2 = entity2.getEquipment();
 
-                if (equipment1 != null) {
-                    for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
-                        ItemStack item = equipment1.getItem(equipmentSlot);
-                        if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
-                            return EntityStackComparisonResult.HAS_EQUIPMENT;
-                    }
+            if (equipment1 != null) {
+                for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
+                    ItemStack item = equipment1.getItem(equipmentSlot);
+                    if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
+                        return EntityStackComparisonResult.HAS_EQUIPMENT;
                 }
+            }
 
-                if (equipment2 != null) {
-                    for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
-                        ItemStack item = equipment2.getItem(equipmentSlot);
-                        if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
-                            return EntityStackComparisonResult.HAS_EQUIPMENT;
-                    }
+            if (equipment2 != null) {
+                for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
+                    ItemStack item = equipment2.getItem(equipmentSlot);
+                    if (item.getType() != Material.AIR && !stackSettings.getEntityTypeData().isStandardEquipment(item))
+                        return EntityStackComparisonResult.HAS_EQUIPMENT;
                 }
             }
 
-            if (Setting.ENTITY_DONT_STACK_IF_ACTIVE_RAIDER.getBoolean() && (NMS_HANDLER.isActiveRaider(entity1) || NMS_HANDLER.isActiveRaider(entity2)))
-                return EntityStackComparisonResult.PART_OF_ACTIVE_RAID;
+            return EntityStackComparisonResult.CAN_STACK;
+        });
 
+        register(LivingEntity.class, COST_LOOKUP, stackSettings -> Setting.ENTITY_DONT_STACK_IF_ACTIVE_RAIDER.getBoolean(), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions) -> {
+            if (NMS_HANDLER.isActiveRaider(entity1) || NMS_HANDLER.isActiveRaider(entity2))
+                return EntityStackComparisonResult.PART_OF_ACTIVE_RAID;
             return EntityStackComparisonResult.CAN_STACK;
         });
 
         // Register conditions for specific interfaces
-        registerConfig(Colorable.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
+        registerSignature(Colorable.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Colorable::getColor);
         registerConfig(Sittable.class, "sitting", false, EntityStackComparisonResult.SITTING, (entity1, entity2) -> entity1.isSitting() || entity2.isSitting());
         registerConfig(Tameable.class, "tamed", false, EntityStackComparisonResult.TAMED, (entity1, entity2) -> entity1.isTamed() || entity2.isTamed());
         registerConfig(Tameable.class, "different-owners", false, EntityStackComparisonResult.DIFFERENT_OWNERS, (entity1, entity2) -> {
@@ -171,7 +205,7 @@ public final class StackConditions {
             }
             return entity1.isLoveMode() || entity2.isLoveMode() || (!entity1.canBreed() && entity1.isAdult()) || (!entity2.canBreed() && entity2.isAdult());
         });
-        registerConfig(Ageable.class, "different-age", true, EntityStackComparisonResult.DIFFERENT_AGES, (entity1, entity2) -> entity1.isAdult() != entity2.isAdult());
+        registerSignature(Ageable.class, "different-age", true, EntityStackComparisonResult.DIFFERENT_AGES, Ageable::isAdult);
         registerConfig(Ageable.class, "baby", false, EntityStackComparisonResult.BABY, (entity1, entity2) -> !entity1.isAdult() || !entity2.isAdult());
         registerConfig(AbstractHorse.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.getInventory().getSaddle() != null || entity2.getInventory().getSaddle() != null);
         registerConfig(ChestedHorse.class, "chested", false, EntityStackComparisonResult.HAS_CHEST, (entity1, entity2) -> entity1.isCarryingChest() || entity2.isCarryingChest());
@@ -183,8 +217,8 @@ public final class StackConditions {
         if (versionNumber >= 19) {
             // Allay, Frog, Goat (extras), Tadpole, Warden
             registerConfig(Allay.class, "holding-items", false, EntityStackComparisonResult.HOLDING_ITEMS, (entity1, entity2) -> !entity1.getInventory().isEmpty() || !entity2.getInventory().isEmpty());
-            registerConfig(Frog.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
-            registerConfig(Goat.class, "different-horns", false, EntityStackComparisonResult.DIFFERENT_HORNS, (entity1, entity2) -> entity1.hasLeftHorn() != entity2.hasLeftHorn() || entity1.hasRightHorn() != entity2.hasRightHorn());
+            registerSignature(Frog.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Frog::getVariant);
+            registerSignature(Goat.class, "different-horns", false, EntityStackComparisonResult.DIFFERENT_HORNS, entity -> (entity.hasLeftHorn() ? 1 : 0) | (entity.hasRightHorn() ? 2 : 0));
 
             // 1.19.3+
             if (NMSAdapter.getHandler().supportsEmptySpawners()) {
@@ -194,7 +228,7 @@ public final class StackConditions {
 
         if (versionNumber >= 17) {
             // Axolotl, Glow Squid, Goat
-            registerConfig(Axolotl.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
+            registerSignature(Axolotl.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Axolotl::getVariant);
             registerConfig(Axolotl.class, "playing-dead", false, EntityStackComparisonResult.PLAYING_DEAD, (entity1, entity2) -> entity1.isPlayingDead() || entity2.isPlayingDead());
             registerConfig(GlowSquid.class, "dark", false, EntityStackComparisonResult.BRAVO_SIX_GOING_DARK, (entity1, entity2) -> entity1.getDarkTicksRemaining() > 0 || entity2.getDarkTicksRemaining() > 0);
             registerConfig(Goat.class, "screaming", false, EntityStackComparisonResult.SCREAMING, (entity1, entity2) -> entity1.isScreaming() || entity2.isScreaming());
@@ -208,51 +242,51 @@ public final class StackConditions {
         registerConfig(Bee.class, "stung", false, EntityStackComparisonResult.HAS_STUNG, (entity1, entity2) -> entity1.hasStung() || entity2.hasStung());
         registerConfig(Bee.class, "has-flower", false, EntityStackComparisonResult.HAS_FLOWER, (entity1, entity2) -> entity1.getFlower() != null || entity2.getFlower() != null);
         registerConfig(Bee.class, "has-nectar", false, EntityStackComparisonResult.HAS_NECTAR, (entity1, entity2) -> entity1.hasNectar() || entity2.hasNectar());
-        registerConfig(Cat.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getCatType() != entity2.getCatType());
-        registerConfig(Cat.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, (entity1, entity2) -> entity1.getCollarColor() != entity2.getCollarColor());
+        registerSignature(Cat.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Cat::getCatType);
+        registerSignature(Cat.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, Cat::getCollarColor);
         registerConfig(Creeper.class, "charged", false, EntityStackComparisonResult.CHARGED, (entity1, entity2) -> entity1.isPowered() || entity2.isPowered());
         registerConfig(Enderman.class, "holding-block", false, EntityStackComparisonResult.HOLDING_BLOCK, (entity1, entity2) -> entity1.getCarriedBlock() != null || entity2.getCarriedBlock() != null);
-        registerConfig(Fox.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getFoxType() != entity2.getFoxType());
+        registerSignature(Fox.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Fox::getFoxType);
         registerConfig(Hoglin.class, "unhuntable", false, EntityStackComparisonResult.UNHUNTABLE, (entity1, entity2) -> !entity1.isAbleToBeHunted() || entity2.isAbleToBeHunted());
         registerConfig(Horse.class, "armored", false, EntityStackComparisonResult.HAS_ARMOR, (entity1, entity2) -> entity1.getInventory().getArmor() != null || entity2.getInventory().getArmor() != null);
-        registerConfig(Horse.class, "different-style", false, EntityStackComparisonResult.DIFFERENT_STYLES, (entity1, entity2) -> entity1.getStyle() != entity2.getStyle());
-        registerConfig(Horse.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
+        registerSignature(Horse.class, "different-style", false, EntityStackComparisonResult.DIFFERENT_STYLES, Horse::getStyle);
+        registerSignature(Horse.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Horse::getColor);
         registerConfig(IronGolem.class, "player-created", false, EntityStackComparisonResult.SPAWNED_BY_PLAYER, (entity1, entity2) -> entity1.isPlayerCreated() || entity2.isPlayerCreated());
         registerConfig(Llama.class, "different-decor", false, EntityStackComparisonResult.DIFFERENT_DECORS, (entity1, entity2) -> entity1.getInventory().getDecor() != entity2.getInventory().getDecor());
-        registerConfig(Llama.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, (entity1, entity2) -> entity1.getColor() != entity2.getColor());
-        registerConfig(MushroomCow.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
-        registerConfig(Panda.class, "different-main-gene", false, EntityStackComparisonResult.DIFFERENT_MAIN_GENES, (entity1, entity2) -> entity1.getMainGene() != entity2.getMainGene());
-        registerConfig(Panda.class, "different-recessive-gene", false, EntityStackComparisonResult.DIFFERENT_RECESSIVE_GENES, (entity1, entity2) -> entity1.getHiddenGene() != entity2.getHiddenGene());
-        registerConfig(Parrot.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVariant() != entity2.getVariant());
-        registerConfig(Phantom.class, "different-size", false, EntityStackComparisonResult.DIFFERENT_SIZES, (entity1, entity2) -> entity1.getSize() != entity2.getSize());
+        registerSignature(Llama.class, "different-color", false, EntityStackComparisonResult.DIFFERENT_COLORS, Llama::getColor);
+        registerSignature(MushroomCow.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, MushroomCow::getVariant);
+        registerSignature(Panda.class, "different-main-gene", false, EntityStackComparisonResult.DIFFERENT_MAIN_GENES, Panda::getMainGene);
+        registerSignature(Panda.class, "different-recessive-gene", false, EntityStackComparisonResult.DIFFERENT_RECESSIVE_GENES, Panda::getHiddenGene);
+        registerSignature(Parrot.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Parrot::getVariant);
+        registerSignature(Phantom.class, "different-size", false, EntityStackComparisonResult.DIFFERENT_SIZES, Phantom::getSize);
         registerConfig(PiglinAbstract.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
-        registerConfig(PiglinAbstract.class, "immune-to-zombification", false, EntityStackComparisonResult.IMMUNE_TO_ZOMBIFICATION, (entity1, entity2) -> entity1.isImmuneToZombification() != entity2.isImmuneToZombification());
+        registerSignature(PiglinAbstract.class, "immune-to-zombification", false, EntityStackComparisonResult.IMMUNE_TO_ZOMBIFICATION, PiglinAbstract::isImmuneToZombification);
         registerConfig(Piglin.class, "unable-to-hunt", false, EntityStackComparisonResult.UNABLE_TO_HUNT, (entity1, entity2) -> !entity1.isAbleToHunt() || !entity2.isAbleToHunt());
         registerConfig(PigZombie.class, "angry", false, EntityStackComparisonResult.ANGRY, (entity1, entity2) -> entity1.isAngry() || entity2.isAngry());
         registerConfig(Pig.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.hasSaddle() || entity2.hasSaddle());
         registerConfig(PufferFish.class, "different-inflation", false, EntityStackComparisonResult.DIFFERENT_INFLATIONS, (entity1, entity2) -> entity1.getPuffState() != entity2.getPuffState());
-        registerConfig(Rabbit.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getRabbitType() != entity2.getRabbitType());
+        registerSignature(Rabbit.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Rabbit::getRabbitType);
         registerConfig(Sheep.class, "sheared", false, EntityStackComparisonResult.SHEARED, (entity1, entity2) -> entity1.isSheared() || entity2.isSheared());
-        registerConfig(Sheep.class, "different-shear-state", false, EntityStackComparisonResult.SHEARED_STATE_DIFFERENT, (entity1, entity2) -> entity1.isSheared() != entity2.isSheared());
-        registerConfig(Slime.class, "different-size", false, EntityStackComparisonResult.DIFFERENT_SIZES, (entity1, entity2) -> entity1.getSize() != entity2.getSize());
+        registerSignature(Sheep.class, "different-shear-state", false, EntityStackComparisonResult.SHEARED_STATE_DIFFERENT, Sheep::isSheared);
+        registerSignature(Slime.class, "different-size", false, EntityStackComparisonResult.DIFFERENT_SIZES, Slime::getSize);
         registerConfig(Snowman.class, "no-pumpkin", false, EntityStackComparisonResult.NO_PUMPKIN, (entity1, entity2) -> entity1.isDerp() || entity2.isDerp());
         registerConfig(Strider.class, "shivering", false, EntityStackComparisonResult.SHIVERING, (entity1, entity2) -> entity1.isShivering() || entity2.isShivering());
         registerConfig(Strider.class, "saddled", false, EntityStackComparisonResult.SADDLED, (entity1, entity2) -> entity1.hasSaddle() || entity2.hasSaddle());
-        registerConfig(TropicalFish.class, "different-body-color", false, EntityStackComparisonResult.DIFFERENT_BODY_COLORS, (entity1, entity2) -> entity1.getBodyColor() != entity2.getBodyColor());
-        registerConfig(TropicalFish.class, "different-pattern", false, EntityStackComparisonResult.DIFFERENT_PATTERNS, (entity1, entity2) -> entity1.getPattern() != entity2.getPattern());
-        registerConfig(TropicalFish.class, "different-pattern-color", false, EntityStackComparisonResult.DIFFERENT_PATTERN_COLORS, (entity1, entity2) -> entity1.getPatternColor() != entity2.getPatternColor());
+        registerSignature(TropicalFish.class, "different-body-color", false, EntityStackComparisonResult.DIFFERENT_BODY_COLORS, TropicalFish::getBodyColor);
+        registerSignature(TropicalFish.class, "different-pattern", false, EntityStackComparisonResult.DIFFERENT_PATTERNS, TropicalFish::getPattern);
+        registerSignature(TropicalFish.class, "different-pattern-color", false, EntityStackComparisonResult.DIFFERENT_PATTERN_COLORS, TropicalFish::getPatternColor);
         registerConfig(Vex.class, "charging", false, EntityStackComparisonResult.CHARGING, (entity1, entity2) -> entity1.isCharging() || entity2.isCharging());
         registerConfig(Villager.class, "professioned", false, EntityStackComparisonResult.PROFESSIONED, (entity1, entity2) -> {
             List<String> professionValues = List.of("NONE", "NITWIT");
             return !professionValues.contains(entity1.getProfession().name()) || !professionValues.contains(entity2.getProfession().name());
         });
-        registerConfig(Villager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, (entity1, entity2) -> entity1.getProfession() != entity2.getProfession());
-        registerConfig(Villager.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, (entity1, entity2) -> entity1.getVillagerType() != entity2.getVillagerType());
-        registerConfig(Villager.class, "different-level", false, EntityStackComparisonResult.DIFFERENT_LEVELS, (entity1, entity2) -> entity1.getVillagerLevel() != entity2.getVillagerLevel());
+        registerSignature(Villager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, Villager::getProfession);
+        registerSignature(Villager.class, "different-type", false, EntityStackComparisonResult.DIFFERENT_TYPES, Villager::getVillagerType);
+        registerSignature(Villager.class, "different-level", false, EntityStackComparisonResult.DIFFERENT_LEVELS, Villager::getVillagerLevel);
         registerConfig(Wolf.class, "angry", false, EntityStackComparisonResult.ANGRY, (entity1, entity2) -> entity1.isAngry() || entity2.isAngry());
-        registerConfig(Wolf.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, (entity1, entity2) -> entity1.getCollarColor() != entity2.getCollarColor());
+        registerSignature(Wolf.class, "different-collar-color", false, EntityStackComparisonResult.DIFFERENT_COLLAR_COLORS, Wolf::getCollarColor);
         registerConfig(Zombie.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
-        registerConfig(ZombieVillager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, (entity1, entity2) -> entity1.getVillagerProfession() != entity2.getVillagerProfession());
+        registerSignature(ZombieVillager.class, "different-profession", false, EntityStackComparisonResult.DIFFERENT_PROFESSIONS, ZombieVillager::getVillagerProfession);
         registerConfig(ZombieVillager.class, "converting", false, EntityStackComparisonResult.CONVERTING, (entity1, entity2) -> entity1.isConverting() || entity2.isConverting());
     }
 
@@ -272,17 +306,66 @@ public final class StackConditions {
                 -> validationPredicate.test(entity1, entity2) ? failureReason : EntityStackComparisonResult.CAN_STACK);
     }
 
+    /**
+     * Registers a condition that fails when an attribute differs between the two entities. Attributes should be
+     * values that rarely change, since they are combined into a {@link StackSignature} that is cached per stack and
+     * only updated when the stack changes or the signature cache duration runs out. A signature mismatch is only used
+     * to reject early, the condition is still tested against the live entities when the signatures match.
+     *
+     * @param assignableClass The class of entities the condition applies to
+     * @param key The config key, prefixed with dont-stack-if-
+     * @param defaultEnabled true if the condition is enabled by default
+     * @param failureReason The result when the attribute differs
+     * @param attribute The function to get the attribute from an entity, results are compared with {@link Objects#equals(Object, Object)}
+     * @param <T> The entity type
+     */
+    public static <T> void registerSignature(Class<T> assignableClass, String key, boolean defaultEnabled, EntityStackComparisonResult failureReason, Function<T, Object> attribute) {
+        CLASS_STACK_EVALUATION_MAP.put(assignableClass, new StackCondition<>(new ConfigProperties("dont-stack-if-" + key, defaultEnabled), (stackSettings, stack1, stack2, entity1, entity2, comparingForUnstack, ignorePositions)
+                -> Objects.equals(attribute.apply(entity1), attribute.apply(entity2)) ? EntityStackComparisonResult.CAN_STACK : failureReason, attribute, COST_CHEAP, stackSettings -> true));
+    }
+
     public static <T> void register(Class<T> assignableClass, StackValidationFunction<T> validationFunction) {
         registerInternal(assignableClass, null, validationFunction);
     }
 
+    public static <T> void register(Class<T> assignableClass, int cost, StackValidationFunction<T> validationFunction) {
+        register(assignableClass, cost, stackSettings -> true, validationFunction);
+    }
+
+    /**
+     * Registers a condition that only applies while a setting is enabled
+     *
+     * @param assignableClass The class of entities the condition applies to
+     * @param cost The relative cost of evaluating the condition, one of the COST_ constants
+     * @param applicable Checks if the condition applies to an entity type, evaluated once when stack settings are loaded
+     * @param validationFunction The condition
+     * @param <T> The entity type
+     */
+    public static <T> void register(Class<T> assignableClass, int cost, Predicate<EntityStackSettings> applicable, StackValidationFunction<T> validationFunction) {
+        CLASS_STACK_EVALUATION_MAP.put(assignableClass, new StackCondition<>(null, validationFunction, null, cost, applicable));
+    }
+
     private static <T, P extends StackValidationFunction<T>> void registerInternal(Class<T> assignableClass, ConfigProperties configProperties, P validationFunction) {
         CLASS_STACK_EVALUATION_MAP.put(assignableClass, new StackCondition<>(configProperties, validationFunction));
     }
 
     public record ConfigProperties(String key, boolean defaultValue) { }
 
-    public record StackCondition<T>(ConfigProperties configProperties, StackValidationFunction<T> function) { }
+    public record StackCondition<T>(ConfigProperties configProperties, StackValidationFunction<T> function, Function<T, Object> signatureAttribute,
+                                    int cost, Predicate<EntityStackSettings> applicable) {
+
+        public StackCondition(ConfigProperties configProperties, StackValidationFunction<T> function) {
+            this(configProperties, function, null, COST_CHEAP, stackSettings -> true);
+        }
+
+        /**
+         * @return true if this condition only compares an attribute that can be part of a {@link StackSignature}
+         */
+        public boolean isSignature() {
+            return this.signatureAttribute != null;
+        }
+
+    }
 
     @FunctionalInterface
     public interface StackValidationFunction<T> {
@@ -0,0 +1,42 @@
+package dev.rosewood.rosestacker.stack.settings.conditions.entity;
+
+import java.util.Arrays;
+import org.bukkit.entity.EntityType;
+
+/**
+ * The values of every enabled signature condition for an entity, see
+ * {@link StackConditions#registerSignature(Class, String, boolean, dev.rosewood.rosestacker.stack.EntityStackComparisonResult, java.util.function.Function)}.
+ * Two entities with different signatures can be rejected without testing any conditions, equal signatures still
+ * require every condition to pass since a cached signature may be out of date.
+ */
+public final class StackSignature {
+
+    private final EntityType entityType;
+    private final Object[] values;
+    private final int hash;
+
+    public StackSignature(EntityType entityType, Object[] values) {
+        this.entityType = entityType;
+        this.values = values;
+        this.hash = 31 * entityType.hashCode() + Arrays.hashCode(values);
+    }
+
+    public EntityType getEntityType() {
+        return this.entityType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof StackSignature other))
+            return false;
+        return this.hash == other.hash && this.entityType == other.entityType && Arrays.equals(this.values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+}
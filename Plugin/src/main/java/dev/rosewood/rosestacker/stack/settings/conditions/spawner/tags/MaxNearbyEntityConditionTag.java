@@ -9,10 +9,8 @@ import dev.rosewood.rosestacker.stack.StackedEntity;
 import dev.rosewood.rosestacker.stack.StackedSpawner;
 import dev.rosewood.rosestacker.stack.settings.SpawnerStackSettings;
 import dev.rosewood.rosestacker.stack.settings.conditions.spawner.ConditionTag;
-import java.util.Collection;
 import java.util.List;
 import org.bukkit.block.Block;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 
@@ -38,19 +36,14 @@ public class MaxNearbyEntityConditionTag extends ConditionTag {
         Block block = stackedSpawner.getBlock();
         List<EntityType> entityTypes = stackedSpawner.getSpawnerTile().getSpawnerType().getEntityTypes();
 
-        Collection<Entity> nearbyEntities = this.entityCacheManager.getNearbyEntities(
-                block.getLocation().clone().add(0.5, 0.5, 0.5),
-                detectionRange,
-                entity -> entityTypes.contains(entity.getType()));
+        boolean includeStacks = Setting.SPAWNER_MAX_NEARBY_ENTITIES_INCLUDE_STACKS.getBoolean();
+        int[] nearbyEntities = new int[1];
+        this.entityCacheManager.forEachNearbyEntity(block.getLocation().add(0.5, 0.5, 0.5), detectionRange, entityTypes, entity -> {
+            StackedEntity stackedEntity = includeStacks ? this.stackManager.getStackedEntity((LivingEntity) entity) : null;
+            nearbyEntities[0] += stackedEntity == null ? 1 : stackedEntity.getStackSize();
+        });
 
-        if (Setting.SPAWNER_MAX_NEARBY_ENTITIES_INCLUDE_STACKS.getBoolean()) {
-            return nearbyEntities.stream().mapToInt(x -> {
-                StackedEntity stackedEntity = this.stackManager.getStackedEntity((LivingEntity) x);
-                return stackedEntity == null ? 1 : stackedEntity.getStackSize();
-            }).sum() < this.maxNearbyEntities;
-        } else {
-            return nearbyEntities.size() < this.maxNearbyEntities;
-        }
+        return nearbyEntities[0] < this.maxNearbyEntities;
     }
 
     @Override
@@ -0,0 +1,265 @@
+package dev.rosewood.rosestacker.utils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * A minimal open-addressing hash map keyed by primitive longs, used for packed coordinate lookups on hot paths.
+ * Lookups do not box the key or allocate. Null values are not permitted.
+ * <p>
+ * This class is not thread safe, callers are responsible for guarding concurrent access.
+ *
+ * @param <V> The value type
+ */
+public class LongObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        this.allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    /**
+     * Gets the value mapped to a key
+     *
+     * @param key The key
+     * @return the mapped value, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        if (keys.length != values.length)
+            return null; // Caught mid-rehash, only possible for optimistic readers who will retry
+
+        int mask = keys.length - 1;
+
+        // The probe is bounded so a caller reading optimistically during a write can never spin forever
+        for (int i = mix(key) & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            Object value = values[i];
+            if (value == null)
+                return null;
+            if (keys[i] == key)
+                return (V) value;
+        }
+
+        return null;
+    }
+
+    /**
+     * Maps a key to a value
+     *
+     * @param key The key
+     * @param value The value, must not be null
+     * @return the previous value mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not permitted");
+
+        int index = this.findSlot(key);
+        Object previous = this.values[index];
+        this.keys[index] = key;
+        this.values[index] = value;
+        if (previous == null && ++this.size >= this.resizeThreshold)
+            this.rehash(this.keys.length << 1);
+        return (V) previous;
+    }
+
+    /**
+     * Gets the value mapped to a key, or computes and maps a new value if there is none
+     *
+     * @param key The key
+     * @param mappingFunction The function to create a new value with, must not return null
+     * @return the existing or newly mapped value
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<V> mappingFunction) {
+        int index = this.findSlot(key);
+        Object value = this.values[index];
+        if (value != null)
+            return (V) value;
+
+        V created = mappingFunction.apply(key);
+        if (created == null)
+            throw new IllegalArgumentException("Null values are not permitted");
+
+        this.keys[index] = key;
+        this.values[index] = created;
+        if (++this.size >= this.resizeThreshold)
+            this.rehash(this.keys.length << 1);
+        return created;
+    }
+
+    /**
+     * Removes the mapping for a key
+     *
+     * @param key The key
+     * @return the value that was mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = this.findSlot(key);
+        Object previous = this.values[index];
+        if (previous == null)
+            return null;
+
+        this.shiftKeys(index);
+        this.size--;
+        return (V) previous;
+    }
+
+    /**
+     * Removes the mapping for a key only if it is currently mapped to the given value
+     *
+     * @param key The key
+     * @param value The expected value
+     * @return true if the mapping was removed, false otherwise
+     */
+    public boolean remove(long key, V value) {
+        int index = this.findSlot(key);
+        if (this.values[index] != value || value == null)
+            return false;
+
+        this.shiftKeys(index);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Runs an action for every value in this map
+     *
+     * @param action The action to run
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<V> action) {
+        for (Object value : this.values)
+            if (value != null)
+                action.accept((V) value);
+    }
+
+    /**
+     * Runs an action for every key in this map
+     *
+     * @param action The action to run
+     */
+    public void forEachKey(LongConsumer action) {
+        for (int i = 0; i < this.values.length; i++)
+            if (this.values[i] != null)
+                action.accept(this.keys[i]);
+    }
+
+    /**
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if this map has no mappings, false otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all mappings from this map
+     */
+    public void clear() {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Finds the slot a key is stored in, or the empty slot it would be inserted into
+     */
+    private int findSlot(long key) {
+        int index = mix(key) & this.mask;
+        while (this.values[index] != null && this.keys[index] != key)
+            index = (index + 1) & this.mask;
+        return index;
+    }
+
+    /**
+     * Backward-shift deletion, keeps probe sequences intact without needing tombstones
+     */
+    private void shiftKeys(int index) {
+        int last, slot;
+        while (true) {
+            last = index;
+            index = (index + 1) & this.mask;
+            while (true) {
+                if (this.values[index] == null) {
+                    this.values[last] = null;
+                    return;
+                }
+
+                slot = mix(this.keys[index]) & this.mask;
+                if (last <= index ? (last >= slot || slot > index) : (last >= slot && slot > index))
+                    break;
+                index = (index + 1) & this.mask;
+            }
+
+            this.keys[last] = this.keys[index];
+            this.values[last] = this.values[index];
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+
+        long[] newKeys = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        int newMask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            Object value = oldValues[i];
+            if (value == null)
+                continue;
+
+            int index = mix(oldKeys[i]) & newMask;
+            while (newValues[index] != null)
+                index = (index + 1) & newMask;
+            newKeys[index] = oldKeys[i];
+            newValues[index] = value;
+        }
+
+        // Publish the new tables only once they are fully populated
+        this.mask = newMask;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        this.values = newValues;
+        this.keys = newKeys;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+    }
+
+}
@@ -118,6 +118,69 @@ public final class StackerUtils {
         return RANDOM.nextDouble() <= chance;
     }
 
+    /**
+     * Packs chunk coordinates into a single long, uses the same layout as Minecraft's ChunkPos
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return the packed chunk key
+     */
+    public static long getChunkKey(int chunkX, int chunkZ) {
+        return (chunkX & 0xFFFFFFFFL) | ((chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    /**
+     * @param chunkKey The packed chunk key
+     * @return the chunk x coordinate of a key created with {@link #getChunkKey(int, int)}
+     */
+    public static int getChunkKeyX(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    /**
+     * @param chunkKey The packed chunk key
+     * @return the chunk z coordinate of a key created with {@link #getChunkKey(int, int)}
+     */
+    public static int getChunkKeyZ(long chunkKey) {
+        return (int) (chunkKey >>> 32);
+    }
+
+    /**
+     * Packs block coordinates into a single long, uses the same layout as Minecraft's BlockPos
+     *
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return the packed block key
+     */
+    public static long getBlockKey(int x, int y, int z) {
+        return ((x & 0x3FFFFFFL) << 38) | ((z & 0x3FFFFFFL) << 12) | (y & 0xFFFL);
+    }
+
+    /**
+     * @param blockKey The packed block key
+     * @return the block x coordinate of a key created with {@link #getBlockKey(int, int, int)}
+     */
+    public static int getBlockKeyX(long blockKey) {
+        return (int) (blockKey >> 38);
+    }
+
+    /**
+     * @param blockKey The packed block key
+     * @return the block y coordinate of a key created with {@link #getBlockKey(int, int, int)}
+     */
+    public static int getBlockKeyY(long blockKey) {
+        return (int) (blockKey << 52 >> 52);
+    }
+
+    /**
+     * @param blockKey The packed block key
+     * @return the block z coordinate of a key created with {@link #getBlockKey(int, int, int)}
+     */
+    public static int getBlockKeyZ(long blockKey) {
+        return (int) (blockKey << 26 >> 38);
+    }
+
     /**
      * Drops experience at a given location
      *